@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.benchmark;
+
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+
+import org.basinmc.maven.plugins.minecraft.access.AccessTransformationMap;
+import org.basinmc.maven.plugins.minecraft.access.SourceAccessTransformer;
+import org.basinmc.maven.plugins.minecraft.access.TransformationType;
+import org.basinmc.maven.plugins.minecraft.access.VisibilityEditor;
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.VisibilityScopedSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the access transformation map lookups as well as the application of access
+ * transformations to a single source file in both formatting modes.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AccessTransformationBenchmark {
+    @Param("4000")
+    private int classes;
+    @Param("8")
+    private int members;
+
+    private Path directory;
+    private Path configurationPath;
+    private AccessTransformationMap transformationMap;
+    private SourceAccessTransformer transformer;
+    private final Formatter formatter = new Formatter();
+
+    private String[] canonicalNames;
+    private String[] internalNames;
+    private String[] sourcePaths;
+    private String[] fieldNames;
+    private String[] methodNames;
+    private String source;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("access-transformation-benchmark");
+        this.configurationPath = this.directory.resolve("at.json");
+
+        Fixtures.writeAccessTransformation(this.configurationPath, this.classes, this.members);
+        this.transformationMap = AccessTransformationMap.read(this.configurationPath);
+        this.transformer = new SourceAccessTransformer(this.transformationMap);
+
+        // every other type is covered by the configuration and thus lookups are split evenly
+        // between hits and misses
+        this.canonicalNames = new String[this.classes];
+        this.internalNames = new String[this.classes];
+        this.sourcePaths = new String[this.classes];
+
+        for (int i = 0; i < this.classes; ++i) {
+            this.internalNames[i] = Fixtures.getMappedName(i);
+            this.canonicalNames[i] = this.internalNames[i].replace('/', '.');
+            this.sourcePaths[i] = this.internalNames[i] + ".java";
+        }
+
+        this.fieldNames = new String[this.members];
+        this.methodNames = new String[this.members];
+
+        for (int i = 0; i < this.members; ++i) {
+            this.fieldNames[i] = "field" + i;
+            this.methodNames[i] = "method" + i;
+        }
+
+        this.source = Fixtures.generateSource(0, this.members);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(this.directory);
+    }
+
+    @Benchmark
+    public AccessTransformationMap read() throws IOException {
+        return AccessTransformationMap.read(this.configurationPath);
+    }
+
+    @Benchmark
+    public void lookupCanonicalName(Blackhole blackhole) {
+        for (String name : this.canonicalNames) {
+            blackhole.consume(this.transformationMap.findTypeMappings(name));
+        }
+    }
+
+    @Benchmark
+    public void lookupInternalName(Blackhole blackhole) {
+        for (String name : this.internalNames) {
+            blackhole.consume(this.transformationMap.findTypeMappings(name));
+        }
+    }
+
+    @Benchmark
+    public void lookupSourcePath(Blackhole blackhole) {
+        for (String name : this.sourcePaths) {
+            blackhole.consume(this.transformationMap.findTypeMappings(name));
+        }
+    }
+
+    @Benchmark
+    public void lookupMembers(Blackhole blackhole) {
+        for (String name : this.internalNames) {
+            TransformationType type = this.transformationMap.findTypeMappings(name);
+
+            if (type == null) {
+                continue;
+            }
+
+            for (int i = 0; i < this.members; ++i) {
+                blackhole.consume(type.findFieldVisibility(this.fieldNames[i]));
+                blackhole.consume(type.findMethodVisibility(this.methodNames[i], "(I)I"));
+            }
+        }
+    }
+
+    /**
+     * Applies access transformations through the parsed model and reformats the result.
+     */
+    @Benchmark
+    public String applyReformat() throws FormatterException {
+        JavaClassSource classSource = Roaster.parse(JavaClassSource.class, this.source);
+        this.transformer.apply(classSource, VisibilityScopedSource::setVisibility);
+        return this.formatter.formatSource(classSource.toString());
+    }
+
+    /**
+     * Applies access transformations by editing the affected modifiers in place.
+     */
+    @Benchmark
+    public String applyMinimal() {
+        JavaClassSource classSource = Roaster.parse(JavaClassSource.class, this.source);
+        VisibilityEditor editor = new VisibilityEditor(this.source);
+        this.transformer.apply(classSource, editor::setVisibility);
+        return editor.apply();
+    }
+}
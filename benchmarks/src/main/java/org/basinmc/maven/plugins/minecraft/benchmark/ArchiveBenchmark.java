@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.benchmark;
+
+import com.google.googlejavaformat.java.Formatter;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.basinmc.maven.plugins.minecraft.source.ModuleArchives;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the archive processing of the decompile-module goal.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveBenchmark {
+    @Param("4000")
+    private int classes;
+
+    private Path directory;
+    private Path modulePath;
+    private Path outputPath;
+    private final Formatter formatter = new Formatter();
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("archive-benchmark");
+        this.modulePath = this.directory.resolve("mapped.jar");
+        this.outputPath = this.directory.resolve("output.jar");
+
+        Fixtures.writeModule(this.modulePath, this.classes, true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.delete(this.directory);
+    }
+
+    /**
+     * Strips all bundled dependencies from the module.
+     */
+    @Benchmark
+    public void strip() throws IOException {
+        ModuleArchives.strip(this.modulePath, this.outputPath);
+    }
+
+    /**
+     * Passes the module through the reformatting step. Since the module does not contain any
+     * source files, this measures the archive copying overhead in isolation (formatting itself is
+     * covered by {@link FormatterBenchmark}).
+     */
+    @Benchmark
+    public void copy() throws IOException, MojoFailureException {
+        ModuleArchives.reformat(this.modulePath, this.outputPath, this.formatter);
+    }
+}
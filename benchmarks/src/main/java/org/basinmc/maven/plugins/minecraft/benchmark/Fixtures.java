@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.benchmark;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Generates synthetic modules, mappings, sources and access transformation configurations which
+ * resemble the structure of their Minecraft counterparts.
+ *
+ * Since neither the game nor its mappings may be redistributed, all benchmarks operate on these
+ * fixtures instead. Every type consists of a fixed amount of fields and methods which refer to the
+ * next type within the module in order to give the remapper some references to resolve.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+final class Fixtures {
+    static final String PACKAGE = "net/minecraft/server";
+    static final int MEMBERS = 8;
+    private static final int LIBRARY_CLASSES = 500;
+    private static final int ASSETS = 500;
+    private static final int ASSET_SIZE = 4096;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Retrieves the obfuscated name of a type (e.g. a, b, ..., aa, ab).
+     */
+    @Nonnull
+    static String getObfuscatedName(@Nonnegative int index) {
+        StringBuilder builder = new StringBuilder();
+
+        do {
+            builder.insert(0, (char) ('a' + index % 26));
+            index = index / 26 - 1;
+        } while (index >= 0);
+
+        return builder.toString();
+    }
+
+    /**
+     * Retrieves the internal name of a mapped type.
+     */
+    @Nonnull
+    static String getMappedName(@Nonnegative int index) {
+        return PACKAGE + "/Type" + index;
+    }
+
+    /**
+     * Writes a module which consists of the supplied amount of game types as well as a set of
+     * bundled library classes and assets.
+     *
+     * @param mapped whether the game types shall use their mapped or obfuscated names.
+     */
+    static void writeModule(@Nonnull Path path, @Nonnegative int classes, boolean mapped) throws IOException {
+        Random random = new Random(classes);
+
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                for (int i = 0; i < classes; ++i) {
+                    String name = (mapped ? getMappedName(i) : getObfuscatedName(i));
+                    String next = (mapped ? getMappedName((i + 1) % classes) : getObfuscatedName((i + 1) % classes));
+
+                    zipOutputStream.putNextEntry(new ZipEntry(name + ".class"));
+                    zipOutputStream.write(generateClass(name, next, (mapped ? "field" : ""), (mapped ? "method" : "")));
+                }
+
+                for (int i = 0; i < LIBRARY_CLASSES; ++i) {
+                    String name = "com/google/common/library/Library" + i;
+                    String next = "com/google/common/library/Library" + ((i + 1) % LIBRARY_CLASSES);
+
+                    zipOutputStream.putNextEntry(new ZipEntry(name + ".class"));
+                    zipOutputStream.write(generateClass(name, next, "field", "method"));
+                }
+
+                byte[] asset = new byte[ASSET_SIZE];
+
+                for (int i = 0; i < ASSETS; ++i) {
+                    random.nextBytes(asset);
+
+                    zipOutputStream.putNextEntry(new ZipEntry("assets/minecraft/textures/asset" + i + ".png"));
+                    zipOutputStream.write(asset);
+                }
+
+                zipOutputStream.putNextEntry(new ZipEntry("log4j2.xml"));
+                zipOutputStream.write("<Configuration />\r\n".getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Generates a class which declares a set of static fields and methods where each method refers
+     * to a field of its own type as well as the respective method of the next type.
+     */
+    @Nonnull
+    private static byte[] generateClass(@Nonnull String name, @Nonnull String next, @Nonnull String fieldPrefix, @Nonnull String methodPrefix) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+
+        for (int i = 0; i < MEMBERS; ++i) {
+            writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, getMemberName(fieldPrefix, i), "I", null, null).visitEnd();
+        }
+
+        for (int i = 0; i < MEMBERS; ++i) {
+            MethodVisitor method = writer.visitMethod(Opcodes.ACC_PROTECTED | Opcodes.ACC_STATIC, getMemberName(methodPrefix, i), "(I)I", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ILOAD, 0);
+            method.visitFieldInsn(Opcodes.GETSTATIC, name, getMemberName(fieldPrefix, i), "I");
+            method.visitInsn(Opcodes.IADD);
+            method.visitMethodInsn(Opcodes.INVOKESTATIC, next, getMemberName(methodPrefix, i), "(I)I", false);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Retrieves the name of a member (obfuscated names are used when no prefix is given).
+     */
+    @Nonnull
+    private static String getMemberName(@Nonnull String prefix, @Nonnegative int index) {
+        return (prefix.isEmpty() ? getObfuscatedName(index) : prefix + index);
+    }
+
+    /**
+     * Writes an SRG mapping as well as the respective MCP field and method name tables for a
+     * module generated by {@link #writeModule(Path, int, boolean)}.
+     */
+    static void writeMappings(@Nonnull Path srgPath, @Nonnull Path fieldsPath, @Nonnull Path methodsPath, @Nonnegative int classes) throws IOException {
+        try (BufferedWriter srg = Files.newBufferedWriter(srgPath, StandardCharsets.UTF_8);
+             BufferedWriter fields = Files.newBufferedWriter(fieldsPath, StandardCharsets.UTF_8);
+             BufferedWriter methods = Files.newBufferedWriter(methodsPath, StandardCharsets.UTF_8)) {
+            fields.write("searge,name,side,desc\n");
+            methods.write("searge,name,side,desc\n");
+
+            srg.write("PK: . " + PACKAGE + "\n");
+
+            for (int i = 0; i < classes; ++i) {
+                String obfuscated = getObfuscatedName(i);
+                String mapped = getMappedName(i);
+
+                srg.write("CL: " + obfuscated + " " + mapped + "\n");
+
+                for (int j = 0; j < MEMBERS; ++j) {
+                    int id = i * MEMBERS + j;
+
+                    srg.write("FD: " + obfuscated + "/" + getObfuscatedName(j) + " " + mapped + "/field_" + id + "_a\n");
+                    srg.write("MD: " + obfuscated + "/" + getObfuscatedName(j) + " (I)I " + mapped + "/func_" + id + "_a (I)I\n");
+
+                    fields.write("field_" + id + "_a,field" + j + ",2,\n");
+                    methods.write("func_" + id + "_a,method" + j + ",2,\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the source of a type in the style of the decompiler output (e.g. prior to being
+     * reformatted).
+     */
+    @Nonnull
+    static String generateSource(@Nonnegative int index, @Nonnegative int members) {
+        StringBuilder builder = new StringBuilder();
+        String name = "Type" + index;
+
+        builder.append("package ").append(PACKAGE.replace('/', '.')).append(";\n\n")
+                .append("import java.util.ArrayList;\n")
+                .append("import java.util.List;\n\n")
+                .append("public class ").append(name).append(" {\n");
+
+        for (int i = 0; i < members; ++i) {
+            builder.append("   private static final int CONSTANT").append(i).append(" = ").append(i).append(";\n")
+                    .append("   private List<String> field").append(i).append(" = new ArrayList();\n");
+        }
+
+        builder.append("\n   ").append(name).append("() {\n   }\n");
+
+        for (int i = 0; i < members; ++i) {
+            builder.append("\n   protected int method").append(i).append("(int var1) {\n")
+                    .append("      if(var1 > CONSTANT").append(i).append(") {\n")
+                    .append("         for(int var2 = 0; var2 < var1; ++var2) {\n")
+                    .append("            this.field").append(i).append(".add(String.valueOf(var2 * CONSTANT").append(i).append("));\n")
+                    .append("         }\n")
+                    .append("      }\n\n")
+                    .append("      return this.field").append(i).append(".size() + var1;\n")
+                    .append("   }\n")
+                    .append("\n   private void method").append(i).append("(String var1) {\n")
+                    .append("      this.field").append(i).append(".add(var1);\n")
+                    .append("   }\n");
+        }
+
+        builder.append("\n   static class Inner {\n")
+                .append("      private int value;\n")
+                .append("   }\n")
+                .append("}\n");
+
+        return builder.toString();
+    }
+
+    /**
+     * Writes an access transformation configuration which targets every other type generated by
+     * {@link #generateSource(int, int)} (including name and descriptor based method rules).
+     */
+    static void writeAccessTransformation(@Nonnull Path path, @Nonnegative int classes, @Nonnegative int members) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\n");
+
+            for (int i = 0; i < classes; i += 2) {
+                if (i != 0) {
+                    writer.write(",\n");
+                }
+
+                writer.write("  \"" + PACKAGE.replace('/', '.') + ".Type" + i + "\": {\n");
+                writer.write("    \"visibility\": \"public\",\n");
+                writer.write("    \"fields\": {");
+
+                for (int j = 0; j < members; j += 2) {
+                    writer.write((j == 0 ? "" : ", ") + "\"field" + j + "\": \"public\"");
+                }
+
+                writer.write("},\n    \"methods\": {");
+
+                for (int j = 0; j < members; j += 2) {
+                    writer.write((j == 0 ? "" : ", ") + "\"method" + j + "\": \"public\", \"method" + (j + 1) + "(I)I\": \"public\"");
+                }
+
+                writer.write("}\n  }");
+            }
+
+            writer.write("\n}\n");
+        }
+    }
+
+    /**
+     * Recursively deletes a directory.
+     */
+    static void delete(@Nonnull Path directory) throws IOException {
+        List<Path> paths;
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
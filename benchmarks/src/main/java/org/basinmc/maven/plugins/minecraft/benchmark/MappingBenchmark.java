@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.benchmark;
+
+import net.md_5.specialsource.Jar;
+import net.md_5.specialsource.JarMapping;
+import net.md_5.specialsource.JarRemapper;
+import net.md_5.specialsource.SpecialSource;
+import net.md_5.specialsource.provider.JarProvider;
+import net.md_5.specialsource.provider.JointProvider;
+import net.md_5.specialsource.transformer.MinecraftCodersPack;
+
+import org.basinmc.maven.plugins.minecraft.access.AccessTransformationMap;
+import org.basinmc.maven.plugins.minecraft.access.AccessTransformationProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping load and jar remapping steps of the apply-mappings goal.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingBenchmark {
+    @Param("4000")
+    private int classes;
+
+    private Path directory;
+    private Path srgPath;
+    private Path fieldsPath;
+    private Path methodsPath;
+    private Path outputPath;
+
+    private Jar jar;
+    private JarRemapper remapper;
+    private JarRemapper transformingRemapper;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("mapping-benchmark");
+        this.srgPath = this.directory.resolve("joined.srg");
+        this.fieldsPath = this.directory.resolve("fields.csv");
+        this.methodsPath = this.directory.resolve("methods.csv");
+        this.outputPath = this.directory.resolve("mapped.jar");
+
+        Path modulePath = this.directory.resolve("module.jar");
+        Path accessTransformationPath = this.directory.resolve("at.json");
+
+        Fixtures.writeModule(modulePath, this.classes, false);
+        Fixtures.writeMappings(this.srgPath, this.fieldsPath, this.methodsPath, this.classes);
+        Fixtures.writeAccessTransformation(accessTransformationPath, this.classes, Fixtures.MEMBERS);
+
+        // matches the configuration of the apply-mappings goal
+        SpecialSource.kill_lvt = true;
+        SpecialSource.kill_source = true;
+
+        JarMapping mapping = this.loadMappings();
+        this.jar = Jar.init(modulePath.toFile());
+
+        JointProvider inheritanceProvider = new JointProvider();
+        inheritanceProvider.add(new JarProvider(this.jar));
+        mapping.setFallbackInheritanceProvider(inheritanceProvider);
+
+        this.remapper = new JarRemapper(mapping);
+        this.transformingRemapper = new JarRemapper(null, mapping, new AccessTransformationProcessor(AccessTransformationMap.read(accessTransformationPath)));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.jar.close();
+        Fixtures.delete(this.directory);
+    }
+
+    @Benchmark
+    public JarMapping loadMappings() throws IOException {
+        MinecraftCodersPack codersPack = new MinecraftCodersPack(this.fieldsPath.toFile(), this.methodsPath.toFile(), null);
+
+        try (BufferedReader srgReader = Files.newBufferedReader(this.srgPath, StandardCharsets.UTF_8)) {
+            JarMapping mapping = new JarMapping();
+            mapping.loadMappings(srgReader, null, codersPack, false);
+            return mapping;
+        }
+    }
+
+    @Benchmark
+    public void remapJar() throws IOException {
+        this.remapper.remapJar(this.jar, this.outputPath.toFile());
+    }
+
+    @Benchmark
+    public void remapJarWithAccessTransformation() throws IOException {
+        this.transformingRemapper.remapJar(this.jar, this.outputPath.toFile());
+    }
+}
@@ -27,12 +27,14 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.factory.ArtifactFactory;
 import org.apache.maven.artifact.installer.ArtifactInstallationException;
 import org.apache.maven.artifact.installer.ArtifactInstaller;
+import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.artifact.metadata.ArtifactMetadata;
 import org.apache.maven.artifact.resolver.ArtifactNotFoundException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
 import org.apache.maven.artifact.resolver.ArtifactResolver;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.project.artifact.ProjectArtifactMetadata;
+import org.basinmc.maven.plugins.minecraft.store.ArtifactLock;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,13 +47,20 @@ import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -79,6 +88,11 @@ public abstract class AbstractArtifactMojo extends AbstractMinecraftMojo {
     protected static final String SOURCE_CLASSIFIER = "source";
 
     private static final Duration SNAPSHOT_CACHING_DURATION = Duration.ofHours(12);
+    private static final String STAGING_DIRECTORY = ".minecraft-staging";
+    private static final String STAGING_LOCK = ".lock";
+    private static final Duration STAGING_EXPIRATION = Duration.ofDays(1);
+
+    private boolean stagingDirectoryCleaned;
 
     // <editor-fold desc="Maven Components">
     @Component
@@ -196,6 +210,20 @@ public abstract class AbstractArtifactMojo extends AbstractMinecraftMojo {
         }
     }
 
+    /**
+     * Executes a task while holding an exclusive lock on the supplied artifact.
+     *
+     * The lock is shared between all threads and processes which operate on the same local
+     * repository and thus permits a derived artifact to be generated once while all other builds
+     * await its installation.
+     */
+    protected <E extends Exception> void exclusive(@Nonnull Artifact artifact, @Nonnull ArtifactLock.Task<E> task) throws E, IOException {
+        ArtifactRepository repository = this.getSession().getLocalRepository();
+        Path lockFile = Paths.get(repository.getBasedir(), repository.pathOf(artifact) + ".lock");
+
+        ArtifactLock.run(lockFile, () -> this.getLog().info("Waiting for concurrent build of artifact " + this.getArtifactCoordinateString(artifact)), task);
+    }
+
     /**
      * Retrieves a human readable set of artifact coordinates.
      */
@@ -206,14 +234,115 @@ public abstract class AbstractArtifactMojo extends AbstractMinecraftMojo {
 
     /**
      * Installs a passed artifact into the local repository.
+     *
+     * The artifact is moved into its final location first in order to avoid a second copy of
+     * (potentially large) artifacts and to ensure that partially written artifacts never become
+     * visible to concurrent builds. The installer is invoked afterwards in order to register the
+     * artifact and its model (it will skip copying the artifact itself as it is already in place).
      */
     protected void installArtifact(@Nonnull Artifact artifact, @Nonnull Path modelPath, @Nonnull Path artifactPath) throws ArtifactInstallationException {
         this.getLog().debug("Installing artifact " + this.getArtifactCoordinateString(artifact));
 
+        ArtifactRepository repository = this.getSession().getLocalRepository();
+        Path target = Paths.get(repository.getBasedir(), repository.pathOf(artifact));
+
+        try {
+            this.publish(artifactPath, target);
+        } catch (IOException ex) {
+            throw new ArtifactInstallationException("Cannot publish artifact " + this.getArtifactCoordinateString(artifact) + ": " + ex.getMessage(), ex);
+        }
+
         ArtifactMetadata metadata = new ProjectArtifactMetadata(artifact, modelPath.toFile());
         artifact.addMetadata(metadata);
 
-        this.getArtifactInstaller().install(artifactPath.toFile(), artifact, this.getSession().getLocalRepository());
+        this.getArtifactInstaller().install(target.toFile(), artifact, repository);
+    }
+
+    /**
+     * Atomically moves a staged file into its final location.
+     *
+     * When the staging directory resides on a different file system, the file is copied next to
+     * its target first and renamed afterwards.
+     */
+    private void publish(@Nonnull Path source, @Nonnull Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            this.getLog().debug("Staging directory resides on a different file system - Copying " + source + " to " + target);
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+            try {
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the directory in which artifacts are staged before being published into the local
+     * repository.
+     *
+     * Unless configured otherwise, the directory resides within the local repository in order to
+     * permit artifacts to be published by renaming them. Stale entries are removed from the
+     * directory when it is first accessed by a mojo.
+     */
+    @Nonnull
+    @Override
+    protected Path getTemporaryDirectory() throws IOException {
+        Path directory = (this.getStagingDirectory() != null ? this.getStagingDirectory().toPath() : Paths.get(this.getSession().getLocalRepository().getBasedir(), STAGING_DIRECTORY));
+        Files.createDirectories(directory);
+
+        if (!this.stagingDirectoryCleaned) {
+            this.stagingDirectoryCleaned = true;
+            this.removeStaleStagingEntries(directory);
+        }
+
+        return directory;
+    }
+
+    /**
+     * Removes temporary files and directories which have been left behind within the staging
+     * directory by interrupted builds.
+     *
+     * Since the directory is shared between all builds, only entries which have not been modified
+     * within the expiration period are considered stale (more recent entries may still be in use
+     * by a concurrent build).
+     */
+    private void removeStaleStagingEntries(@Nonnull Path directory) throws IOException {
+        Instant threshold = Instant.now().minus(STAGING_EXPIRATION);
+
+        ArtifactLock.run(directory.resolve(STAGING_LOCK), () -> this.getLog().info("Waiting for concurrent cleanup of staging directory " + directory), () -> {
+            final List<Path> stale;
+
+            try (Stream<Path> stream = Files.list(directory)) {
+                stale = stream
+                        .filter((p) -> p.getFileName().toString().startsWith(TEMPORARY_PREFIX))
+                        .filter((p) -> {
+                            try {
+                                return Files.getLastModifiedTime(p).toInstant().isBefore(threshold);
+                            } catch (IOException ex) {
+                                return false;
+                            }
+                        })
+                        .collect(Collectors.toList());
+            }
+
+            for (Path path : stale) {
+                this.getLog().info("Removing stale staging entry " + path);
+
+                try (Stream<Path> stream = Files.walk(path)) {
+                    for (Path element : stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                        Files.deleteIfExists(element);
+                    }
+                } catch (IOException ex) {
+                    this.getLog().warn("Cannot remove stale staging entry " + path + ": " + ex.getMessage());
+                }
+            }
+        });
     }
 
     /**
@@ -16,7 +16,16 @@
  */
 package org.basinmc.maven.plugins.minecraft;
 
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
 import org.apache.maven.artifact.Artifact;
+import org.basinmc.maven.plugins.minecraft.decompiler.FernflowerDecompiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
@@ -30,6 +39,7 @@ import javax.annotation.concurrent.ThreadSafe;
 @Immutable
 @ThreadSafe
 public abstract class AbstractMappingMojo extends AbstractArtifactMojo {
+    private String accessTransformationHash;
 
     /**
      * Retrieves a mapped artifact.
@@ -39,12 +49,58 @@ public abstract class AbstractMappingMojo extends AbstractArtifactMojo {
         return this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), MAPPED_CLASSIFIER);
     }
 
+    /**
+     * Retrieves a source artifact.
+     *
+     * Sources produced by decompilers other than the default (or with custom options) are stored
+     * using a dedicated classifier since their contents differ.
+     */
+    @Nonnull
+    protected Artifact getSourceArtifact() {
+        String classifier = SOURCE_CLASSIFIER;
+
+        if (!FernflowerDecompiler.NAME.equals(this.getDecompiler()) || !this.getDecompilerOptions().isEmpty()) {
+            classifier += "-" + this.getDecompiler();
+
+            if (!this.getDecompilerOptions().isEmpty()) {
+                classifier += "-" + Hashing.sha1().hashString(new TreeMap<>(this.getDecompilerOptions()).toString(), StandardCharsets.UTF_8).toString().substring(0, 8);
+            }
+        }
+
+        return this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), classifier);
+    }
+
     /**
      * Retrieves the version attributed to all mapped binary artifacts.
      */
     @Nonnull
     protected String getMappedArtifactVersion() {
-        return this.getGameVersion() + "-" + this.getSrgVersion() + "-" + ("live".equals(this.getMappingVersion()) ? MCP_LIVE_VERSION : this.getMappingVersion());
+        String version = this.getGameVersion() + "-" + this.getSrgVersion() + "-" + ("live".equals(this.getMappingVersion()) ? MCP_LIVE_VERSION : this.getMappingVersion());
+
+        // bytecode level access transformations are baked into the mapped artifact and thus
+        // require their own artifact version per access transformation configuration (any change
+        // to the configuration thus causes a full re-mapping and decompilation)
+        if (this.isBytecodeAccessTransformation()) {
+            version += "-at" + this.getAccessTransformationHash();
+        }
+
+        return version;
+    }
+
+    /**
+     * Retrieves a short hash of the access transformation configuration.
+     */
+    @Nonnull
+    protected String getAccessTransformationHash() {
+        if (this.accessTransformationHash == null) {
+            try {
+                this.accessTransformationHash = Files.hash(this.getAccessTransformation(), Hashing.sha1()).toString().substring(0, 8);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read access transformation configuration: " + ex.getMessage(), ex);
+            }
+        }
+
+        return this.accessTransformationHash;
     }
 
     /**
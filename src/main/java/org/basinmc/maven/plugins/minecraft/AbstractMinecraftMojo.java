@@ -22,11 +22,16 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
+import org.basinmc.maven.plugins.minecraft.decompiler.Decompiler;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nonnegative;
@@ -44,6 +49,8 @@ import javax.annotation.concurrent.ThreadSafe;
 @Immutable
 @ThreadSafe
 public abstract class AbstractMinecraftMojo extends AbstractMojo {
+    protected static final String TEMPORARY_PREFIX = "mvn_mc";
+    private static final String DEFAULT_MEMORY_DIRECTORY = "/dev/shm";
 
     // <editor-fold desc="Maven Components">
     @Parameter(property = "project", required = true, readonly = true)
@@ -70,15 +77,52 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
     private File sourceDirectory;
     @Parameter(defaultValue = "${project.build.directory}/generated-sources/minecraft", required = true)
     private File resourceDirectory;
+    @Parameter(defaultValue = "extract", required = true)
+    private String resourceMode;
+    @Parameter(defaultValue = "git", required = true)
+    private String patchGenerator;
+    @Parameter(defaultValue = "fernflower", required = true)
+    private String decompiler;
+    @Parameter
+    private Map<String, String> decompilerOptions;
+    @Parameter(property = "minecraft.decompilerForks")
+    private int decompilerForks;
+    @Parameter
+    private List<String> decompilerJvmArguments;
+    @Parameter(property = "minecraft.decompilerChunkSize")
+    private int decompilerChunkSize;
+    @Parameter(property = "minecraft.decompilerTimeout")
+    private int decompilerTimeout;
 
     @Parameter
     private File accessTransformation;
+    @Parameter(defaultValue = "source", required = true)
+    private String accessTransformationMode;
+    @Parameter(defaultValue = "reformat", required = true)
+    private String accessTransformationFormatting;
 
     @Parameter
     private Set<String> excludedResources;
 
     @Parameter(property = "minecraft.force")
     private boolean force;
+    @Parameter(property = "minecraft.dryRun")
+    private boolean dryRun;
+
+    @Parameter(property = "minecraft.threads")
+    private int threads;
+    @Parameter(property = "minecraft.gitTimeout")
+    private int gitTimeout;
+    @Parameter(property = "minecraft.contentStore")
+    private File contentStore;
+    @Parameter(property = "minecraft.stagingDirectory")
+    private File stagingDirectory;
+    @Parameter(defaultValue = "disk", required = true)
+    private String intermediateMode;
+    @Parameter(property = "minecraft.memoryDirectory")
+    private File memoryDirectory;
+    @Parameter(property = "minecraft.memoryThreshold", defaultValue = "512")
+    private int memoryThreshold;
     // </editor-fold>
 
     // <editor-fold desc="Component Getters">
@@ -138,11 +182,108 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
         return this.resourceDirectory;
     }
 
+    @Nonnull
+    public String getResourceMode() {
+        return this.resourceMode;
+    }
+
+    /**
+     * Checks whether resources are copied from the source artifact into the packaged artifact
+     * directly instead of being extracted into the resource directory.
+     */
+    public boolean isArchiveResourceMode() {
+        return "archive".equals(this.resourceMode);
+    }
+
+    @Nonnull
+    public String getPatchGenerator() {
+        return this.patchGenerator;
+    }
+
+    @Nonnull
+    public String getDecompiler() {
+        return this.decompiler;
+    }
+
+    @Nonnull
+    public Map<String, String> getDecompilerOptions() {
+        if (this.decompilerOptions == null) {
+            return Collections.emptyMap();
+        }
+
+        return this.decompilerOptions;
+    }
+
+    /**
+     * Retrieves the amount of worker JVMs to fork for decompilation (or zero if the decompiler
+     * shall be executed within the Maven JVM).
+     */
+    @Nonnegative
+    public int getDecompilerForks() {
+        return Math.max(0, this.decompilerForks);
+    }
+
+    @Nonnull
+    public List<String> getDecompilerJvmArguments() {
+        if (this.decompilerJvmArguments == null) {
+            return Collections.emptyList();
+        }
+
+        return this.decompilerJvmArguments;
+    }
+
+    /**
+     * Retrieves the maximum amount of class data (in KiB) to decompile at once (or zero if the
+     * entire module shall be decompiled at once).
+     */
+    @Nonnegative
+    public int getDecompilerChunkSize() {
+        return Math.max(0, this.decompilerChunkSize);
+    }
+
+    /**
+     * Retrieves the amount of seconds to wait for a forked decompiler worker to process a single
+     * request (or zero if no timeout applies).
+     */
+    @Nonnegative
+    public int getDecompilerTimeout() {
+        return Math.max(0, this.decompilerTimeout);
+    }
+
     @Nullable
     public File getAccessTransformation() {
         return this.accessTransformation;
     }
 
+    @Nonnull
+    public String getAccessTransformationMode() {
+        return this.accessTransformationMode;
+    }
+
+    /**
+     * Checks whether access transformations are applied to the bytecode during the mapping process
+     * instead of the decompiled sources.
+     *
+     * Changes to the configuration cannot be applied incrementally in this mode as they require
+     * the module to be re-mapped and decompiled.
+     */
+    public boolean isBytecodeAccessTransformation() {
+        return this.accessTransformation != null && "bytecode".equals(this.accessTransformationMode);
+    }
+
+    @Nonnull
+    public String getAccessTransformationFormatting() {
+        return this.accessTransformationFormatting;
+    }
+
+    /**
+     * Checks whether access transformations are applied to the sources by replacing the affected
+     * modifiers in place instead of reformatting the transformed files as a whole.
+     */
+    public boolean isMinimalAccessTransformationFormatting() {
+        return "minimal".equals(this.accessTransformationFormatting);
+    }
+
     @Nullable
     public Set<String> getExcludedResources() {
         return this.excludedResources;
@@ -151,6 +292,97 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
     public boolean isForced() {
         return this.force;
     }
+
+    /**
+     * Checks whether operations shall only be simulated without modifying the module
+     * repository.
+     */
+    public boolean isDryRun() {
+        return this.dryRun;
+    }
+
+    /**
+     * Retrieves the amount of worker threads to use for parallelized tasks (defaults to the amount
+     * of available processors).
+     */
+    @Nonnegative
+    public int getThreads() {
+        if (this.threads <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return this.threads;
+    }
+
+    /**
+     * Retrieves the amount of seconds to wait for git commands to exit (or zero if no timeout
+     * applies).
+     */
+    @Nonnegative
+    public int getGitTimeout() {
+        return Math.max(0, this.gitTimeout);
+    }
+
+    /**
+     * Retrieves the directory of the content store which is shared between workspaces (or null if
+     * resources are extracted into every workspace individually).
+     */
+    @Nullable
+    public File getContentStore() {
+        return this.contentStore;
+    }
+
+    /**
+     * Retrieves the directory in which artifacts are staged before being published (or null if the
+     * default location shall be used).
+     */
+    @Nullable
+    public File getStagingDirectory() {
+        return this.stagingDirectory;
+    }
+
+    @Nonnull
+    public String getIntermediateMode() {
+        return this.intermediateMode;
+    }
+
+    /**
+     * Checks whether intermediate files shall be kept within a memory backed directory (as long as
+     * they are expected to fit within the memory threshold).
+     */
+    public boolean isMemoryIntermediateMode() {
+        return "memory".equals(this.intermediateMode);
+    }
+
+    /**
+     * Retrieves the memory backed directory in which intermediate files are stored (defaults to
+     * /dev/shm).
+     */
+    @Nonnull
+    public File getMemoryDirectory() {
+        if (this.memoryDirectory == null) {
+            return new File(DEFAULT_MEMORY_DIRECTORY);
+        }
+
+        return this.memoryDirectory;
+    }
+
+    /**
+     * Retrieves the maximum amount of mebibytes intermediate files may occupy within the memory
+     * directory.
+     */
+    @Nonnegative
+    public int getMemoryThreshold() {
+        return Math.max(0, this.memoryThreshold);
+    }
+
+    /**
+     * Retrieves the directory in which state is persisted between builds.
+     */
+    @Nonnull
+    protected Path getStateDirectory() {
+        return Paths.get(this.getProject().getBuild().getDirectory(), "minecraft");
+    }
     // </editor-fold>
 
     /**
@@ -158,20 +390,26 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
      * finish execution.
      */
     protected <E extends Exception> void temporary(@Nonnull PathConsumer<E> consumer) throws E, IOException {
-        Path tmp = Files.createTempFile("mvn_mc", "tmp");
-
-        try {
-            consumer.accept(tmp);
-        } finally {
-            Files.delete(tmp);
-        }
+        this.temporary(this.getTemporaryDirectory(), 1, (p) -> consumer.accept(p[0]));
     }
 
     protected <E extends Exception> void temporary(@Nonnegative int amount, @Nonnull MultiPathConsumer<E> consumer) throws E, IOException {
+        this.temporary(this.getTemporaryDirectory(), amount, consumer);
+    }
+
+    /**
+     * "Wraps" a set of intermediate files which are placed within the memory directory when
+     * permitted by the configuration and their expected total size.
+     */
+    protected <E extends Exception> void intermediate(@Nonnegative long expectedSize, @Nonnegative int amount, @Nonnull MultiPathConsumer<E> consumer) throws E, IOException {
+        this.temporary(this.getIntermediateDirectory(expectedSize), amount, consumer);
+    }
+
+    private <E extends Exception> void temporary(@Nullable Path directory, @Nonnegative int amount, @Nonnull MultiPathConsumer<E> consumer) throws E, IOException {
         Path tmp[] = new Path[amount];
 
         for (int i = 0; i < tmp.length; ++i) {
-            tmp[i] = Files.createTempFile("mvn_mc", "tmp");
+            tmp[i] = (directory == null ? Files.createTempFile(TEMPORARY_PREFIX, "tmp") : Files.createTempFile(directory, TEMPORARY_PREFIX, "tmp"));
         }
 
         try {
@@ -179,9 +417,10 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
         } finally {
             IOException exception = null;
 
+            // temporary files may have been moved to their final location by the consumer
             for (Path path : tmp) {
                 try {
-                    Files.delete(path);
+                    Files.deleteIfExists(path);
                 } catch (IOException ex) {
                     exception = ex;
                 }
@@ -198,7 +437,19 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
      * returns.
      */
     protected <E extends Exception> void temporaryDirectory(@Nonnull PathConsumer<E> consumer) throws E, IOException {
-        Path tmp = Files.createTempDirectory("mvn_mc");
+        this.temporaryDirectory(this.getTemporaryDirectory(), consumer);
+    }
+
+    /**
+     * Creates a "wrapped" directory for intermediate files which is placed within the memory
+     * directory when permitted by the configuration and its expected total size.
+     */
+    protected <E extends Exception> void intermediateDirectory(@Nonnegative long expectedSize, @Nonnull PathConsumer<E> consumer) throws E, IOException {
+        this.temporaryDirectory(this.getIntermediateDirectory(expectedSize), consumer);
+    }
+
+    private <E extends Exception> void temporaryDirectory(@Nullable Path directory, @Nonnull PathConsumer<E> consumer) throws E, IOException {
+        Path tmp = (directory == null ? Files.createTempDirectory(TEMPORARY_PREFIX) : Files.createTempDirectory(directory, TEMPORARY_PREFIX));
 
         try {
             consumer.accept(tmp);
@@ -222,6 +473,42 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Retrieves the directory in which temporary files and directories are created (or null if
+     * the system default shall be used).
+     */
+    @Nullable
+    protected Path getTemporaryDirectory() throws IOException {
+        return null;
+    }
+
+    /**
+     * Retrieves the directory in which intermediate files of the supplied expected size are
+     * created.
+     *
+     * The memory directory is only selected when intermediate files fit within the configured
+     * threshold as well as the space left within the memory directory. In all other cases
+     * intermediate files fall back to the temporary directory.
+     */
+    @Nullable
+    private Path getIntermediateDirectory(@Nonnegative long expectedSize) throws IOException {
+        if (this.isMemoryIntermediateMode()) {
+            Path directory = this.getMemoryDirectory().toPath();
+
+            if (expectedSize > this.getMemoryThreshold() * 1024L * 1024L) {
+                this.getLog().info("Storing intermediate files on disk - Expected size of " + (expectedSize / 1024 / 1024) + " MiB exceeds memory threshold");
+            } else if (!Files.isDirectory(directory) || !Files.isWritable(directory)) {
+                this.getLog().warn("Storing intermediate files on disk - Memory directory " + directory + " is not writable");
+            } else if (Files.getFileStore(directory).getUsableSpace() < expectedSize) {
+                this.getLog().info("Storing intermediate files on disk - Insufficient space within memory directory " + directory);
+            } else {
+                return directory;
+            }
+        }
+
+        return this.getTemporaryDirectory();
+    }
+
     /**
      * Verifies whether the specified set of configuration properties is within their expected
      * bounds.
@@ -234,6 +521,40 @@ public abstract class AbstractMinecraftMojo extends AbstractMojo {
                         throw new MojoExecutionException("Invalid module \"" + this.getModule() + "\" expected server or client");
                     }
                     break;
+                case "accessTransformationMode":
+                    if (!"source".equals(this.getAccessTransformationMode()) && !"bytecode".equals(this.getAccessTransformationMode())) {
+                        throw new MojoExecutionException("Invalid access transformation mode \"" + this.getAccessTransformationMode() + "\" expected source or bytecode");
+                    }
+
+                    if (this.accessTransformation != null && !Files.isReadable(this.accessTransformation.toPath())) {
+                        throw new MojoExecutionException("Access transformation configuration \"" + this.accessTransformation.getAbsolutePath() + "\" is not readable");
+                    }
+                    break;
+                case "accessTransformationFormatting":
+                    if (!"reformat".equals(this.getAccessTransformationFormatting()) && !"minimal".equals(this.getAccessTransformationFormatting())) {
+                        throw new MojoExecutionException("Invalid access transformation formatting \"" + this.getAccessTransformationFormatting() + "\" expected reformat or minimal");
+                    }
+                    break;
+                case "intermediateMode":
+                    if (!"disk".equals(this.getIntermediateMode()) && !"memory".equals(this.getIntermediateMode())) {
+                        throw new MojoExecutionException("Invalid intermediate mode \"" + this.getIntermediateMode() + "\" expected disk or memory");
+                    }
+                    break;
+                case "resourceMode":
+                    if (!"extract".equals(this.getResourceMode()) && !"archive".equals(this.getResourceMode())) {
+                        throw new MojoExecutionException("Invalid resource mode \"" + this.getResourceMode() + "\" expected extract or archive");
+                    }
+                    break;
+                case "patchGenerator":
+                    if (!"git".equals(this.getPatchGenerator()) && !"jgit".equals(this.getPatchGenerator())) {
+                        throw new MojoExecutionException("Invalid patch generator \"" + this.getPatchGenerator() + "\" expected git or jgit");
+                    }
+                    break;
+                case "decompiler":
+                    if (!Decompiler.find(this.getDecompiler()).isPresent()) {
+                        throw new MojoExecutionException("Invalid decompiler \"" + this.getDecompiler() + "\" expected fernflower, cfr or a decompiler provided by a plugin dependency");
+                    }
+                    break;
                 case "patchDirectory":
                     this.verifyDirectory(this.patchDirectory.toPath());
                     break;
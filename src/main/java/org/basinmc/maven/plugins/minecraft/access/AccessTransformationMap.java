@@ -20,16 +20,24 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.collect.ImmutableMap;
 
 import org.jboss.forge.roaster.model.Visibility;
 
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -42,10 +50,46 @@ import javax.annotation.concurrent.ThreadSafe;
 @ThreadSafe
 public class AccessTransformationMap {
     private final Map<String, TransformationType> map;
+    private final TypeNameIndex<TransformationType> index;
 
     @JsonCreator
     private AccessTransformationMap(@Nonnull @JsonProperty(required = true) Map<String, TransformationType> map) {
-        this.map = map;
+        // all type names are normalized when the map is constructed in order to keep lookups free
+        // of any additional string operations
+        Map<String, TransformationType> normalized = new HashMap<>();
+        map.forEach((name, type) -> normalized.put(TypeNameIndex.normalize(name), type));
+
+        this.map = ImmutableMap.copyOf(normalized);
+        this.index = new TypeNameIndex<>(this.map);
+    }
+
+    /**
+     * Creates an empty access transformation map.
+     */
+    @Nonnull
+    public static AccessTransformationMap empty() {
+        return new AccessTransformationMap(Collections.emptyMap());
+    }
+
+    /**
+     * Retrieves the names of all types whose mappings differ between this map and a supplied
+     * previous version of the map (including types which have been added or removed).
+     */
+    @Nonnull
+    public Set<String> getChangedTypes(@Nonnull AccessTransformationMap previous) {
+        Set<String> types = new HashSet<>();
+
+        this.map.forEach((name, type) -> {
+            if (!type.equals(previous.map.get(name))) {
+                types.add(name);
+            }
+        });
+
+        previous.map.keySet().stream()
+                .filter((name) -> !this.map.containsKey(name))
+                .forEach(types::add);
+
+        return types;
     }
 
     /**
@@ -53,13 +97,70 @@ public class AccessTransformationMap {
      */
     @Nonnull
     public Optional<TransformationType> getTypeMappings(@Nonnull String type) {
-        // unify class name to simplify things for our callee
-        if (type.endsWith(".java")) {
-            type = type.substring(0, type.length() - 5);
-        }
+        return Optional.ofNullable(this.findTypeMappings(type));
+    }
+
+    /**
+     * Retrieves the mappings for a certain type or null if no mappings exist for the type.
+     *
+     * Types may be identified by their canonical name, their internal name or the path of their
+     * source file.
+     */
+    @Nullable
+    public TransformationType findTypeMappings(@Nonnull CharSequence type) {
+        return this.index.get(type);
+    }
+
+    /**
+     * Checks whether any of the contained mappings specifies rules which apply to its subtypes.
+     */
+    public boolean hasInheritedRules() {
+        return this.map.values().stream().anyMatch(TransformationType::hasInheritedRules);
+    }
+
+    /**
+     * Resolves all inherited rules against the supplied type hierarchy and produces a flat map in
+     * which every affected type is represented by its own mapping.
+     *
+     * Rules specified for a type directly take precedence over inherited rules while inherited
+     * rules are resolved by walking the supertypes of each type in order of their distance (e.g.
+     * the nearest supertype which specifies a rule wins).
+     */
+    @Nonnull
+    public AccessTransformationMap resolve(@Nonnull ClassHierarchyIndex index) {
+        Map<String, TransformationType> resolved = new HashMap<>(this.map);
+        Set<String> affectedTypes = new HashSet<>();
+
+        this.map.forEach((name, type) -> {
+            if (type.hasInheritedRules()) {
+                affectedTypes.addAll(index.getAllSubtypes(name));
+            }
+        });
+
+        affectedTypes.forEach((subtype) -> {
+            List<TransformationType> ancestors = new ArrayList<>();
+
+            for (String supertype : index.getAllSupertypes(subtype)) {
+                TransformationType type = this.map.get(supertype);
+
+                if (type != null && type.hasInheritedRules()) {
+                    ancestors.add(type);
+                }
+            }
+
+            resolved.put(subtype, this.map.getOrDefault(subtype, TransformationType.empty()).inherit(ancestors));
+
+            // nested types are only transformed as part of their enclosing types and thus
+            // require all of their parents to be present within the map
+            String enclosingType = index.getEnclosingType(subtype).orElse(null);
+
+            while (enclosingType != null) {
+                resolved.putIfAbsent(enclosingType, TransformationType.empty());
+                enclosingType = index.getEnclosingType(enclosingType).orElse(null);
+            }
+        });
 
-        type = type.replace("/", ".");
-        return Optional.ofNullable(this.map.get(type));
+        return new AccessTransformationMap(resolved);
     }
 
     /**
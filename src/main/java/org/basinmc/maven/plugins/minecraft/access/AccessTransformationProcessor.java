@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import net.md_5.specialsource.RemapperProcessor;
+
+import org.jboss.forge.roaster.model.Visibility;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides a remapper post processor which applies access transformations to the access flags of
+ * classes, fields and methods while they are being remapped.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class AccessTransformationProcessor extends RemapperProcessor {
+    private static final int VISIBILITY_MASK = Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE;
+
+    private final AccessTransformationMap transformationMap;
+
+    public AccessTransformationProcessor(@Nonnull AccessTransformationMap transformationMap) {
+        super(null, null);
+        this.transformationMap = transformationMap;
+    }
+
+    /**
+     * Converts a visibility into its respective set of access flags.
+     */
+    private static int toAccessFlags(@Nonnull Visibility visibility) {
+        switch (visibility) {
+            case PUBLIC:
+                return Opcodes.ACC_PUBLIC;
+            case PROTECTED:
+                return Opcodes.ACC_PROTECTED;
+            case PRIVATE:
+                return Opcodes.ACC_PRIVATE;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Replaces the visibility within a set of access flags.
+     */
+    private static int transform(int access, @Nonnull Visibility visibility) {
+        return (access & ~VISIBILITY_MASK) | toAccessFlags(visibility);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte[] process(@Nonnull ClassReader classReader) {
+        ClassWriter writer = new ClassWriter(0);
+        classReader.accept(new TransformationClassVisitor(writer), 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Applies the access transformations for a single class as well as the inner class
+     * declarations it refers to.
+     */
+    private class TransformationClassVisitor extends ClassVisitor {
+        private TransformationType type;
+        private String simpleName;
+
+        TransformationClassVisitor(@Nonnull ClassVisitor classVisitor) {
+            super(Opcodes.ASM5, classVisitor);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.type = AccessTransformationProcessor.this.transformationMap.findTypeMappings(name);
+            this.simpleName = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1);
+
+            if (this.type != null) {
+                Visibility visibility = this.type.getVisibility().orElse(null);
+
+                // the class file format only permits public and package-private types on the
+                // top level (the actual nested visibility is stored within the InnerClasses
+                // attribute instead)
+                if (visibility == Visibility.PROTECTED) {
+                    visibility = Visibility.PUBLIC;
+                } else if (visibility == Visibility.PRIVATE) {
+                    visibility = Visibility.PACKAGE_PRIVATE;
+                }
+
+                if (visibility != null) {
+                    access = transform(access, visibility);
+                }
+            }
+
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            TransformationType innerType = AccessTransformationProcessor.this.transformationMap.findTypeMappings(name);
+
+            if (innerType != null) {
+                Visibility visibility = innerType.getVisibility().orElse(null);
+
+                if (visibility != null) {
+                    access = transform(access, visibility);
+                }
+            }
+
+            super.visitInnerClass(name, outerName, innerName, access);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (this.type != null) {
+                Visibility visibility = this.type.findFieldVisibility(name);
+
+                if (visibility != null) {
+                    access = transform(access, visibility);
+                }
+            }
+
+            return super.visitField(access, name, desc, signature, value);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            Visibility visibility = this.getMethodVisibility(name, desc);
+
+            if (visibility != null) {
+                access = transform(access, visibility);
+            }
+
+            return super.visitMethod(access, name, desc, signature, exceptions);
+        }
+
+        /**
+         * Retrieves the altered visibility of a method (if any).
+         */
+        @Nullable
+        private Visibility getMethodVisibility(@Nonnull String name, @Nonnull String desc) {
+            if (this.type == null || "<clinit>".equals(name)) {
+                return null;
+            }
+
+            // constructors are identified by their type name within the source representation
+            if ("<init>".equals(name)) {
+                name = this.simpleName;
+            }
+
+            return this.type.findMethodVisibility(name, desc);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides an index of the type hierarchy within a module in order to resolve inherited access
+ * transformation rules.
+ *
+ * All types are identified by their canonical name (e.g. {@code net.minecraft.server.Outer.Inner})
+ * in order to match the notation used within access transformation configurations.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class ClassHierarchyIndex {
+    private final Map<String, Set<String>> subtypes;
+    private final Map<String, List<String>> supertypes;
+    private final Map<String, String> enclosingTypes;
+
+    private ClassHierarchyIndex(@Nonnull Map<String, Set<String>> subtypes, @Nonnull Map<String, List<String>> supertypes, @Nonnull Map<String, String> enclosingTypes) {
+        this.subtypes = subtypes;
+        this.supertypes = supertypes;
+        this.enclosingTypes = enclosingTypes;
+    }
+
+    /**
+     * Converts an internal class name into its canonical representation.
+     */
+    @Nonnull
+    private static String toCanonicalName(@Nonnull String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /**
+     * Retrieves all direct and indirect subtypes (including implementations) of a certain type.
+     */
+    @Nonnull
+    public Set<String> getAllSubtypes(@Nonnull String type) {
+        Set<String> result = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>(this.getSubtypes(type));
+
+        while (!queue.isEmpty()) {
+            String subtype = queue.removeFirst();
+
+            if (result.add(subtype)) {
+                queue.addAll(this.getSubtypes(subtype));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Retrieves all direct and indirect supertypes (including interfaces) of a certain type
+     * ordered by their distance to the type.
+     *
+     * Supertypes of equal distance are ordered by their declaration (e.g. the super class precedes
+     * the interfaces in the order in which they are implemented).
+     */
+    @Nonnull
+    public List<String> getAllSupertypes(@Nonnull String type) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(this.getSupertypes(type));
+
+        while (!queue.isEmpty()) {
+            String supertype = queue.removeFirst();
+
+            if (result.add(supertype)) {
+                queue.addAll(this.getSupertypes(supertype));
+            }
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Retrieves the type which declares a certain nested type (if any).
+     */
+    @Nonnull
+    public Optional<String> getEnclosingType(@Nonnull String type) {
+        return Optional.ofNullable(this.enclosingTypes.get(type));
+    }
+
+    /**
+     * Retrieves all direct subtypes (including implementations) of a certain type.
+     */
+    @Nonnull
+    public Set<String> getSubtypes(@Nonnull String type) {
+        return this.subtypes.getOrDefault(type, Collections.emptySet());
+    }
+
+    /**
+     * Retrieves the direct super class followed by all directly implemented interfaces of a
+     * certain type.
+     */
+    @Nonnull
+    public List<String> getSupertypes(@Nonnull String type) {
+        return this.supertypes.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * Reads the type hierarchy of all classes within a supplied jar.
+     *
+     * @throws IOException when accessing the jar fails.
+     */
+    @Nonnull
+    public static ClassHierarchyIndex read(@Nonnull Path path) throws IOException {
+        return read(path, UnaryOperator.identity());
+    }
+
+    /**
+     * Reads the type hierarchy of all classes within a supplied jar and translates their internal
+     * names using the supplied mapper (e.g. in order to index an unmapped jar by its mapped names).
+     *
+     * @throws IOException when accessing the jar fails.
+     */
+    @Nonnull
+    public static ClassHierarchyIndex read(@Nonnull Path path, @Nonnull UnaryOperator<String> nameMapper) throws IOException {
+        Map<String, Set<String>> subtypes = new HashMap<>();
+        Map<String, List<String>> supertypes = new HashMap<>();
+        Map<String, String> enclosingTypes = new HashMap<>();
+
+        try (ZipFile file = new ZipFile(path.toFile())) {
+            Enumeration<? extends ZipEntry> enumeration = file.entries();
+
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+
+                if (!entry.getName().endsWith(".class")) {
+                    continue;
+                }
+
+                // the class header is sufficient for our purposes and does not require the
+                // remaining class file to be visited
+                final ClassReader reader;
+
+                try (InputStream inputStream = file.getInputStream(entry)) {
+                    reader = new ClassReader(inputStream);
+                }
+
+                String internalName = nameMapper.apply(reader.getClassName());
+                String name = toCanonicalName(internalName);
+                List<String> directSupertypes = new ArrayList<>();
+
+                if (reader.getSuperName() != null) {
+                    directSupertypes.add(toCanonicalName(nameMapper.apply(reader.getSuperName())));
+                }
+
+                for (String interfaceName : reader.getInterfaces()) {
+                    directSupertypes.add(toCanonicalName(nameMapper.apply(interfaceName)));
+                }
+
+                directSupertypes.forEach((s) -> subtypes.computeIfAbsent(s, (k) -> new HashSet<>()).add(name));
+                supertypes.put(name, directSupertypes);
+
+                int separator = internalName.lastIndexOf('$');
+
+                if (separator != -1) {
+                    enclosingTypes.put(name, toCanonicalName(internalName.substring(0, separator)));
+                }
+            }
+        }
+
+        return new ClassHierarchyIndex(subtypes, supertypes, enclosingTypes);
+    }
+}
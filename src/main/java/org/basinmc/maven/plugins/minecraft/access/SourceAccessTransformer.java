@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import com.google.common.base.Splitter;
+
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.jboss.forge.roaster.Internal;
+import org.jboss.forge.roaster.model.GenericCapable;
+import org.jboss.forge.roaster.model.JavaType;
+import org.jboss.forge.roaster.model.Type;
+import org.jboss.forge.roaster.model.TypeVariable;
+import org.jboss.forge.roaster.model.Visibility;
+import org.jboss.forge.roaster.model.source.FieldHolderSource;
+import org.jboss.forge.roaster.model.source.FieldSource;
+import org.jboss.forge.roaster.model.source.Importer;
+import org.jboss.forge.roaster.model.source.MethodHolderSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+import org.jboss.forge.roaster.model.source.ParameterSource;
+import org.jboss.forge.roaster.model.source.VisibilityScopedSource;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Locates the declarations within a parsed source file which are altered by an access
+ * transformation map.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class SourceAccessTransformer {
+    private final AccessTransformationMap transformationMap;
+
+    public SourceAccessTransformer(@Nonnull AccessTransformationMap transformationMap) {
+        this.transformationMap = transformationMap;
+    }
+
+    /**
+     * Applies access transformations to a parsed type and all of its nested members by passing
+     * every altered declaration and its new visibility to the supplied consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public void apply(@Nonnull JavaType classSource, @Nonnull BiConsumer<VisibilityScopedSource<?>, Visibility> consumer) {
+        this.transformationMap.getTypeMappings(classSource.getQualifiedName()).ifPresent((t) -> {
+            if (classSource instanceof VisibilityScopedSource) {
+                t.getVisibility().ifPresent((v) -> consumer.accept((VisibilityScopedSource<?>) classSource, v));
+            }
+
+            if (classSource instanceof FieldHolderSource) {
+                ((List<FieldSource>) ((FieldHolderSource) classSource).getFields()).forEach((f) -> t.getFieldVisibility(getFieldName(f)).ifPresent((v) -> consumer.accept(f, v)));
+            }
+
+            if (classSource instanceof MethodHolderSource) {
+                ((List<MethodSource>) ((MethodHolderSource) classSource).getMethods()).forEach((m) -> {
+                    // descriptors are only computed for methods which are actually targeted by a
+                    // descriptor specific rule
+                    String descriptor = (t.hasMethodDescriptorRules(m.getName()) ? getDescriptor(classSource, m) : null);
+                    Visibility visibility = t.findMethodVisibility(m.getName(), descriptor);
+
+                    if (visibility != null) {
+                        consumer.accept(m, visibility);
+                    }
+                });
+            }
+
+            ((List<JavaType>) classSource.getNestedClasses()).forEach((c) -> this.apply(c, consumer));
+        });
+    }
+
+    /**
+     * Retrieves the name of a parsed field.
+     *
+     * Roaster reports the name of the first field for every field within a declaration of
+     * multiple fields (e.g. "int a, b;") and thus the name is read from the backing fragment
+     * instead.
+     */
+    @Nonnull
+    static String getFieldName(@Nonnull FieldSource<?> field) {
+        Object internal = (field instanceof Internal ? ((Internal) field).getInternal() : null);
+
+        if (internal instanceof VariableDeclarationFragment) {
+            return ((VariableDeclarationFragment) internal).getName().getIdentifier();
+        }
+
+        return field.getName();
+    }
+
+    /**
+     * Computes the erased descriptor of a parsed method.
+     */
+    @Nonnull
+    private static String getDescriptor(@Nonnull JavaType<?> owner, @Nonnull MethodSource<?> method) {
+        StringBuilder builder = new StringBuilder("(");
+
+        for (ParameterSource<?> parameter : method.getParameters()) {
+            appendDescriptor(builder, owner, method, parameter.getType());
+        }
+
+        builder.append(')');
+
+        if (method.isConstructor() || method.isReturnTypeVoid()) {
+            builder.append('V');
+        } else {
+            appendDescriptor(builder, owner, method, method.getReturnType());
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends the erased descriptor of a parsed type to the supplied builder.
+     *
+     * Note: Since the source representation does not differentiate between package and nested
+     * type separators, all segments which follow a capitalized segment are assumed to refer to
+     * nested types.
+     */
+    private static void appendDescriptor(@Nonnull StringBuilder builder, @Nonnull JavaType<?> owner, @Nonnull MethodSource<?> method, @Nonnull Type<?> type) {
+        for (int i = 0; i < type.getArrayDimensions(); ++i) {
+            builder.append('[');
+        }
+
+        String name = getErasedName(type.getQualifiedName());
+
+        switch (name) {
+            case "boolean":
+                builder.append('Z');
+                return;
+            case "byte":
+                builder.append('B');
+                return;
+            case "char":
+                builder.append('C');
+                return;
+            case "short":
+                builder.append('S');
+                return;
+            case "int":
+                builder.append('I');
+                return;
+            case "long":
+                builder.append('J');
+                return;
+            case "float":
+                builder.append('F');
+                return;
+            case "double":
+                builder.append('D');
+                return;
+        }
+
+        String simpleName = getErasedName(type.getName());
+        TypeVariable<?> variable = method.getTypeVariable(simpleName);
+
+        if (variable == null && owner instanceof GenericCapable) {
+            variable = ((GenericCapable<?>) owner).getTypeVariable(simpleName);
+        }
+
+        if (variable != null) {
+            name = (variable.getBounds().isEmpty() ? "java.lang.Object" : getErasedName(variable.getBounds().get(0).getQualifiedName()));
+        }
+
+        // references to nested types of imported types (e.g. Map.Entry) are not resolved by the
+        // parser and are thus resolved through their enclosing type instead
+        int separator = name.indexOf('.');
+
+        if (separator != -1 && Character.isUpperCase(name.charAt(0)) && owner instanceof Importer) {
+            name = ((Importer<?>) owner).resolveType(name.substring(0, separator)) + name.substring(separator);
+        }
+
+        builder.append('L');
+        boolean first = true;
+        boolean nested = false;
+
+        for (String segment : Splitter.on('.').split(name)) {
+            if (!first) {
+                builder.append(nested ? '$' : '/');
+            }
+
+            first = false;
+
+            builder.append(segment);
+            nested |= (!segment.isEmpty() && Character.isUpperCase(segment.charAt(0)));
+        }
+
+        builder.append(';');
+    }
+
+    /**
+     * Strips the type arguments and array dimensions from a type name.
+     */
+    @Nonnull
+    private static String getErasedName(@Nonnull String name) {
+        int end = name.indexOf('<');
+
+        if (end != -1) {
+            name = name.substring(0, end);
+        }
+
+        end = name.indexOf('[');
+
+        if (end != -1) {
+            name = name.substring(0, end);
+        }
+
+        return name.trim();
+    }
+}
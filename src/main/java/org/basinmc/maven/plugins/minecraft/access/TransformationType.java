@@ -18,12 +18,17 @@ package org.basinmc.maven.plugins.minecraft.access;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
 
 import org.jboss.forge.roaster.model.Visibility;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -34,6 +39,17 @@ import javax.annotation.concurrent.ThreadSafe;
  * Represents the mapping of a class's visibility and its member visibilities (excluding the nested
  * type visibility).
  *
+ * Method rules are either identified by their name only (e.g. {@code tick}) in which case they
+ * apply to all overloads or by their name and descriptor (e.g.
+ * {@code tick(Ljava/lang/String;)V}) in which case they only apply to a single overload and take
+ * precedence over the name based rules.
+ *
+ * In addition to the rules for the type itself, a mapping may specify rules which are inherited by
+ * all of its subtypes: The subtype visibility is applied to all subclasses and implementations
+ * while inherited methods are altered within the type itself as well as all of their overrides.
+ * These rules are resolved against the module's type hierarchy via
+ * {@link AccessTransformationMap#resolve(ClassHierarchyIndex)}.
+ *
  * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
  */
 @Immutable
@@ -42,20 +58,57 @@ public class TransformationType {
     private final Visibility visibility;
     private final Map<String, Visibility> fields;
     private final Map<String, Visibility> methods;
+    private final Visibility subtypeVisibility;
+    private final Map<String, Visibility> inheritedMethods;
+
+    /**
+     * Stores the compiled method rules indexed by their respective method name.
+     */
+    private final Map<String, MethodRule> methodRules;
 
     @JsonCreator
-    private TransformationType(@Nullable @JsonProperty("visibility") Visibility visibility, @Nullable @JsonProperty("fields") Map<String, Visibility> fields, @Nullable @JsonProperty("methods") Map<String, Visibility> methods) {
-        if (fields == null) {
-            fields = new HashMap<>();
+    private TransformationType(@Nullable @JsonProperty("visibility") Visibility visibility, @Nullable @JsonProperty("fields") Map<String, Visibility> fields, @Nullable @JsonProperty("methods") Map<String, Visibility> methods, @Nullable @JsonProperty("subtypeVisibility") Visibility subtypeVisibility, @Nullable @JsonProperty("inheritedMethods") Map<String, Visibility> inheritedMethods) {
+        this.visibility = visibility;
+        this.fields = (fields == null ? ImmutableMap.of() : ImmutableMap.copyOf(fields));
+        this.methods = (methods == null ? ImmutableMap.of() : ImmutableMap.copyOf(methods));
+        this.subtypeVisibility = subtypeVisibility;
+        this.inheritedMethods = (inheritedMethods == null ? ImmutableMap.of() : ImmutableMap.copyOf(inheritedMethods));
+
+        // inherited rules are compiled first in order for the rules of this type to take
+        // precedence over them
+        Map<String, MethodRule.Builder> builders = new HashMap<>();
+        this.inheritedMethods.forEach((key, v) -> compileRule(builders, key, v));
+        this.methods.forEach((key, v) -> compileRule(builders, key, v));
+
+        ImmutableMap.Builder<String, MethodRule> methodRules = ImmutableMap.builder();
+        builders.forEach((name, builder) -> methodRules.put(name, builder.build()));
+        this.methodRules = methodRules.build();
+    }
+
+    /**
+     * Compiles a single method rule into its respective rule builder.
+     */
+    private static void compileRule(@Nonnull Map<String, MethodRule.Builder> builders, @Nonnull String key, @Nonnull Visibility visibility) {
+        int separator = key.indexOf('(');
+
+        if (separator == -1) {
+            builders.computeIfAbsent(key, (k) -> new MethodRule.Builder()).visibility = visibility;
+            return;
         }
 
-        if (methods == null) {
-            methods = new HashMap<>();
+        if (separator == 0 || key.indexOf(')', separator) == -1) {
+            throw new IllegalArgumentException("Illegal method rule \"" + key + "\": Expected name or name(descriptor)");
         }
 
-        this.visibility = visibility;
-        this.fields = fields;
-        this.methods = methods;
+        builders.computeIfAbsent(key.substring(0, separator), (k) -> new MethodRule.Builder()).descriptors.put(key.substring(separator), visibility);
+    }
+
+    /**
+     * Creates an empty mapping which does not alter any visibility.
+     */
+    @Nonnull
+    static TransformationType empty() {
+        return new TransformationType(null, null, null, null, null);
     }
 
     /**
@@ -63,15 +116,59 @@ public class TransformationType {
      */
     @Nonnull
     public Optional<Visibility> getFieldVisibility(@Nonnull String fieldName) {
-        return Optional.ofNullable(this.fields.get(fieldName));
+        return Optional.ofNullable(this.findFieldVisibility(fieldName));
+    }
+
+    /**
+     * Retrieves the altered visibility for a field of a specific name or null if no rule applies
+     * to it.
+     */
+    @Nullable
+    public Visibility findFieldVisibility(@Nonnull String fieldName) {
+        return this.fields.get(fieldName);
     }
 
     /**
-     * Retrieves the altered visibility for a method of a specific name (if any).
+     * Retrieves the altered visibility for all methods of a specific name (if any).
      */
     @Nonnull
     public Optional<Visibility> getMethodVisibility(@Nonnull String methodName) {
-        return Optional.ofNullable(this.methods.get(methodName));
+        return Optional.ofNullable(this.findMethodVisibility(methodName, null));
+    }
+
+    /**
+     * Retrieves the altered visibility for a method of a specific name and descriptor or null if
+     * no rule applies to it.
+     *
+     * When no descriptor is passed, only the rules which apply to all overloads of the method are
+     * considered.
+     */
+    @Nullable
+    public Visibility findMethodVisibility(@Nonnull String methodName, @Nullable String descriptor) {
+        MethodRule rule = this.methodRules.get(methodName);
+
+        if (rule == null) {
+            return null;
+        }
+
+        if (descriptor != null) {
+            Visibility visibility = rule.descriptors.get(descriptor);
+
+            if (visibility != null) {
+                return visibility;
+            }
+        }
+
+        return rule.visibility;
+    }
+
+    /**
+     * Checks whether any of the method rules of a specific name is restricted to a certain
+     * descriptor (e.g. in order to avoid computing descriptors which will never be looked up).
+     */
+    public boolean hasMethodDescriptorRules(@Nonnull String methodName) {
+        MethodRule rule = this.methodRules.get(methodName);
+        return rule != null && !rule.descriptors.isEmpty();
     }
 
     /**
@@ -81,4 +178,126 @@ public class TransformationType {
     public Optional<Visibility> getVisibility() {
         return Optional.ofNullable(this.visibility);
     }
+
+    /**
+     * Checks whether this mapping specifies any rules which apply to its subtypes.
+     */
+    public boolean hasInheritedRules() {
+        return this.subtypeVisibility != null || !this.inheritedMethods.isEmpty();
+    }
+
+    /**
+     * Creates a copy of this mapping which additionally includes the rules inherited from its
+     * supertypes.
+     *
+     * Rules specified for this type directly take precedence over all inherited rules while the
+     * inherited rules of nearer supertypes take precedence over those of more distant supertypes.
+     * A name based rule takes precedence over all rules for the same method which are inherited
+     * from more distant supertypes (including descriptor specific rules).
+     *
+     * @param ancestors a list of supertypes ordered by their distance to this type.
+     */
+    @Nonnull
+    TransformationType inherit(@Nonnull List<TransformationType> ancestors) {
+        Visibility visibility = this.visibility;
+        Map<String, Visibility> methods = new HashMap<>(this.methods);
+
+        Set<String> coveredNames = new HashSet<>();
+        Set<String> coveredRules = new HashSet<>();
+        cover(coveredNames, coveredRules, this.methods.keySet());
+        cover(coveredNames, coveredRules, this.inheritedMethods.keySet());
+
+        for (TransformationType ancestor : ancestors) {
+            if (visibility == null) {
+                visibility = ancestor.subtypeVisibility;
+            }
+
+            Set<String> rules = new HashSet<>();
+
+            ancestor.inheritedMethods.forEach((key, value) -> {
+                int separator = key.indexOf('(');
+                String name = (separator == -1 ? key : key.substring(0, separator));
+
+                if (!coveredNames.contains(name) && !coveredRules.contains(key)) {
+                    methods.put(key, value);
+                    rules.add(key);
+                }
+            });
+
+            // rules of the same supertype are only covered once it has been processed entirely
+            // in order to permit name and descriptor based rules to coexist
+            cover(coveredNames, coveredRules, rules);
+        }
+
+        return new TransformationType(visibility, this.fields, methods, this.subtypeVisibility, this.inheritedMethods);
+    }
+
+    /**
+     * Marks a set of method rules as covered (e.g. as specified by a nearer type).
+     */
+    private static void cover(@Nonnull Set<String> coveredNames, @Nonnull Set<String> coveredRules, @Nonnull Set<String> rules) {
+        for (String key : rules) {
+            if (key.indexOf('(') == -1) {
+                coveredNames.add(key);
+            } else {
+                coveredRules.add(key);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || this.getClass() != o.getClass()) {
+            return false;
+        }
+
+        TransformationType that = (TransformationType) o;
+        return this.visibility == that.visibility &&
+                this.subtypeVisibility == that.subtypeVisibility &&
+                this.fields.equals(that.fields) &&
+                this.methods.equals(that.methods) &&
+                this.inheritedMethods.equals(that.inheritedMethods);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.visibility, this.fields, this.methods, this.subtypeVisibility, this.inheritedMethods);
+    }
+
+    /**
+     * Represents the compiled set of rules for all methods of a certain name.
+     */
+    @Immutable
+    @ThreadSafe
+    private static class MethodRule {
+        private final Visibility visibility;
+        private final Map<String, Visibility> descriptors;
+
+        private MethodRule(@Nullable Visibility visibility, @Nonnull Map<String, Visibility> descriptors) {
+            this.visibility = visibility;
+            this.descriptors = descriptors;
+        }
+
+        /**
+         * Provides a mutable representation of a method rule while it is being compiled.
+         */
+        private static class Builder {
+            private final Map<String, Visibility> descriptors = new HashMap<>();
+            private Visibility visibility;
+
+            @Nonnull
+            private MethodRule build() {
+                return new MethodRule(this.visibility, ImmutableMap.copyOf(this.descriptors));
+            }
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides an immutable hash table which maps type names to values regardless of the notation they
+ * are passed in.
+ *
+ * Keys are normalized to their canonical representation (e.g. {@code net.minecraft.Outer.Inner})
+ * when the index is constructed. Lookups on the other hand accept canonical names, internal names
+ * (e.g. {@code net/minecraft/Outer$Inner}) as well as source file paths (e.g.
+ * {@code net/minecraft/Outer.java}) and normalize them on the fly without allocating any
+ * intermediate strings.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+final class TypeNameIndex<V> {
+    private static final String SOURCE_SUFFIX = ".java";
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    TypeNameIndex(@Nonnull Map<String, V> entries) {
+        // the table is kept at a load factor of at most 0.5 in order to keep probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(2, entries.size() * 2 - 1)) << 1;
+
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+
+        entries.forEach((name, value) -> {
+            String key = normalize(name);
+            int i = hash(key, key.length()) & this.mask;
+
+            while (this.keys[i] != null && !this.keys[i].equals(key)) {
+                i = (i + 1) & this.mask;
+            }
+
+            this.keys[i] = key;
+            this.values[i] = value;
+        });
+    }
+
+    /**
+     * Normalizes a single character of a type name.
+     */
+    private static char normalize(char c) {
+        return (c == '/' || c == '$' ? '.' : c);
+    }
+
+    /**
+     * Normalizes a type name into its canonical representation.
+     */
+    @Nonnull
+    static String normalize(@Nonnull String name) {
+        int length = getEffectiveLength(name);
+        StringBuilder builder = new StringBuilder(length);
+
+        for (int i = 0; i < length; ++i) {
+            builder.append(normalize(name.charAt(i)));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Retrieves the length of a type name excluding its source file suffix (if any).
+     */
+    private static int getEffectiveLength(@Nonnull CharSequence name) {
+        int length = name.length();
+
+        if (length < SOURCE_SUFFIX.length()) {
+            return length;
+        }
+
+        for (int i = 0; i < SOURCE_SUFFIX.length(); ++i) {
+            if (name.charAt(length - SOURCE_SUFFIX.length() + i) != SOURCE_SUFFIX.charAt(i)) {
+                return length;
+            }
+        }
+
+        return length - SOURCE_SUFFIX.length();
+    }
+
+    /**
+     * Computes the hash of the normalized representation of a type name.
+     */
+    private static int hash(@Nonnull CharSequence name, int length) {
+        int hash = 0;
+
+        for (int i = 0; i < length; ++i) {
+            hash = 31 * hash + normalize(name.charAt(i));
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Retrieves the value associated with a type name or null if no such value exists.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V get(@Nonnull CharSequence name) {
+        int length = getEffectiveLength(name);
+        int i = hash(name, length) & this.mask;
+        String key;
+
+        while ((key = this.keys[i]) != null) {
+            if (matches(key, name, length)) {
+                return (V) this.values[i];
+            }
+
+            i = (i + 1) & this.mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether a normalized key matches the normalized representation of a type name.
+     */
+    private static boolean matches(@Nonnull String key, @Nonnull CharSequence name, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; ++i) {
+            if (key.charAt(i) != normalize(name.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
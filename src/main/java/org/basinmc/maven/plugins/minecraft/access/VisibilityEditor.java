@@ -0,0 +1,361 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.IExtendedModifier;
+import org.eclipse.jdt.core.dom.Modifier;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.jboss.forge.roaster.Internal;
+import org.jboss.forge.roaster.model.JavaType;
+import org.jboss.forge.roaster.model.Visibility;
+import org.jboss.forge.roaster.model.source.VisibilityScopedSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Applies visibility changes to a source file by editing its modifier tokens in place.
+ *
+ * Unlike altering the visibility through the parsed model (which requires the entire file to be
+ * rewritten and reformatted), all remaining text is left untouched. Declarations are located
+ * through the JDT nodes which back the Roaster model and thus the model passed to this editor is
+ * expected to have been parsed from the exact same source. Declarations of multiple fields are
+ * split up when their fields are assigned differing visibilities.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@NotThreadSafe
+public class VisibilityEditor {
+    private final String source;
+
+    /**
+     * Stores all pending edits indexed by their respective start offset.
+     */
+    private final Map<Integer, Edit> edits = new TreeMap<>();
+
+    /**
+     * Stores the requested visibilities of fields which share their declaration with other fields
+     * (e.g. "private int a, b;") indexed by their respective declaration.
+     */
+    private final Map<FieldDeclaration, Map<VariableDeclarationFragment, Visibility>> fields = new LinkedHashMap<>();
+
+    public VisibilityEditor(@Nonnull String source) {
+        this.source = source;
+    }
+
+    /**
+     * Alters the visibility of a parsed declaration.
+     *
+     * @throws IllegalArgumentException when the declaration is not backed by a JDT node.
+     */
+    public void setVisibility(@Nonnull VisibilityScopedSource<?> target, @Nonnull Visibility visibility) {
+        if (target.getVisibility() == visibility) {
+            return;
+        }
+
+        Object internal = (target instanceof Internal ? ((Internal) target).getInternal() : null);
+
+        // fields are represented by a single fragment of their declaration while types are
+        // represented by their compilation unit
+        if (internal instanceof VariableDeclarationFragment) {
+            VariableDeclarationFragment fragment = (VariableDeclarationFragment) internal;
+            internal = fragment.getParent();
+
+            // declarations of multiple fields are only edited once all of their changes are known
+            // as they need to be split up when their fields end up with differing visibilities
+            if (internal instanceof FieldDeclaration && ((FieldDeclaration) internal).fragments().size() > 1) {
+                this.fields.computeIfAbsent((FieldDeclaration) internal, (d) -> new HashMap<>()).put(fragment, visibility);
+                return;
+            }
+        } else if (internal instanceof CompilationUnit && target instanceof JavaType) {
+            CompilationUnit unit = (CompilationUnit) internal;
+            String prefix = (unit.getPackage() == null ? "" : unit.getPackage().getName().getFullyQualifiedName() + ".");
+
+            // nested types are separated by a dollar sign within their qualified name
+            internal = findType(unit.types(), prefix, ((JavaType<?>) target).getQualifiedName().replace('$', '.'));
+        }
+
+        if (!(internal instanceof BodyDeclaration)) {
+            throw new IllegalArgumentException("Unsupported declaration: " + (internal == null ? "null" : internal.getClass().getName()));
+        }
+
+        Edit edit = this.createEdit((BodyDeclaration) internal, visibility);
+
+        if (edit != null) {
+            this.edits.put(edit.start, edit);
+        }
+    }
+
+    /**
+     * Creates an edit which alters the visibility modifier of a declaration (or null if the
+     * declaration remains unchanged).
+     */
+    @Nullable
+    private Edit createEdit(@Nonnull BodyDeclaration declaration, @Nonnull Visibility visibility) {
+        Modifier existing = null;
+        Modifier firstKeyword = null;
+        int offset = declaration.getStartPosition();
+
+        if (declaration.getJavadoc() != null) {
+            offset = end(declaration.getJavadoc());
+        }
+
+        for (Object element : declaration.modifiers()) {
+            if (element instanceof Modifier) {
+                Modifier modifier = (Modifier) element;
+
+                if (firstKeyword == null) {
+                    firstKeyword = modifier;
+                }
+
+                if (modifier.isPublic() || modifier.isProtected() || modifier.isPrivate()) {
+                    existing = modifier;
+                }
+            } else if (((IExtendedModifier) element).isAnnotation()) {
+                offset = Math.max(offset, end((ASTNode) element));
+            }
+        }
+
+        String keyword = getKeyword(visibility);
+
+        if (existing != null) {
+            int end = end(existing);
+
+            // removed modifiers take their trailing whitespace with them in order to retain the
+            // original spacing
+            if (keyword == null) {
+                while (end < this.source.length() && Character.isWhitespace(this.source.charAt(end))) {
+                    ++end;
+                }
+
+                return new Edit(existing.getStartPosition(), end, "");
+            }
+
+            return new Edit(existing.getStartPosition(), end, keyword);
+        }
+
+        if (keyword == null) {
+            return null;
+        }
+
+        if (firstKeyword != null) {
+            offset = firstKeyword.getStartPosition();
+        } else {
+            while (offset < this.source.length() && Character.isWhitespace(this.source.charAt(offset))) {
+                ++offset;
+            }
+        }
+
+        return new Edit(offset, offset, keyword + " ");
+    }
+
+    /**
+     * Alters the visibility of a subset of the fields within a declaration of multiple fields.
+     *
+     * When all fields end up with the same visibility, the modifier of the declaration is edited
+     * as usual. Otherwise the declaration is split into one declaration per field (each of which
+     * retains the annotations, modifiers and type of the original declaration).
+     */
+    private void editFields(@Nonnull FieldDeclaration declaration, @Nonnull Map<VariableDeclarationFragment, Visibility> changes) {
+        Visibility current = getVisibility(declaration);
+        List<?> fragments = declaration.fragments();
+        List<Visibility> visibilities = new ArrayList<>(fragments.size());
+
+        for (Object fragment : fragments) {
+            visibilities.add(changes.getOrDefault(fragment, current));
+        }
+
+        if (visibilities.stream().distinct().count() == 1) {
+            Edit edit = this.createEdit(declaration, visibilities.get(0));
+
+            if (edit != null) {
+                this.edits.put(edit.start, edit);
+            }
+
+            return;
+        }
+
+        int start = (declaration.modifiers().isEmpty() ? declaration.getType() : (ASTNode) declaration.modifiers().get(0)).getStartPosition();
+        int fragmentStart = ((ASTNode) fragments.get(0)).getStartPosition();
+        String separator = this.getSeparator(start);
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < fragments.size(); ++i) {
+            ASTNode fragment = (ASTNode) fragments.get(i);
+            Edit edit = this.createEdit(declaration, visibilities.get(i));
+
+            if (i != 0) {
+                builder.append(separator);
+            }
+
+            if (edit == null) {
+                builder.append(this.source, start, fragmentStart);
+            } else {
+                builder.append(this.source, start, edit.start)
+                        .append(edit.replacement)
+                        .append(this.source, edit.end, fragmentStart);
+            }
+
+            builder.append(this.source, fragment.getStartPosition(), end(fragment)).append(';');
+        }
+
+        this.edits.put(start, new Edit(start, end(declaration), builder.toString()));
+    }
+
+    /**
+     * Retrieves the separator to place between split declarations (e.g. a line break followed by
+     * the indentation of the original declaration when it starts on its own line).
+     */
+    @Nonnull
+    private String getSeparator(int offset) {
+        int lineStart = offset;
+
+        while (lineStart > 0 && (this.source.charAt(lineStart - 1) == ' ' || this.source.charAt(lineStart - 1) == '\t')) {
+            --lineStart;
+        }
+
+        if (lineStart != 0 && this.source.charAt(lineStart - 1) != '\n') {
+            return " ";
+        }
+
+        return "\n" + this.source.substring(lineStart, offset);
+    }
+
+    /**
+     * Applies all pending edits and returns the resulting source.
+     */
+    @Nonnull
+    public String apply() {
+        this.fields.forEach(this::editFields);
+        this.fields.clear();
+
+        if (this.edits.isEmpty()) {
+            return this.source;
+        }
+
+        StringBuilder builder = new StringBuilder(this.source.length() + this.edits.size() * 10);
+        int position = 0;
+
+        for (Edit edit : this.edits.values()) {
+            builder.append(this.source, position, edit.start)
+                    .append(edit.replacement);
+            position = edit.end;
+        }
+
+        builder.append(this.source, position, this.source.length());
+        return builder.toString();
+    }
+
+    /**
+     * Locates the declaration of a type with the supplied qualified name within a list of body
+     * declarations and their nested types.
+     */
+    @Nullable
+    private static AbstractTypeDeclaration findType(@Nonnull List<?> declarations, @Nonnull String prefix, @Nonnull String qualifiedName) {
+        for (Object element : declarations) {
+            if (!(element instanceof AbstractTypeDeclaration)) {
+                continue;
+            }
+
+            AbstractTypeDeclaration declaration = (AbstractTypeDeclaration) element;
+            String name = prefix + declaration.getName().getIdentifier();
+
+            if (name.equals(qualifiedName)) {
+                return declaration;
+            }
+
+            if (qualifiedName.startsWith(name + ".")) {
+                return findType(declaration.bodyDeclarations(), name + ".", qualifiedName);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Computes the end offset of a node.
+     */
+    private static int end(@Nonnull ASTNode node) {
+        return node.getStartPosition() + node.getLength();
+    }
+
+    /**
+     * Retrieves the visibility which is expressed by the modifiers of a declaration.
+     */
+    @Nonnull
+    private static Visibility getVisibility(@Nonnull BodyDeclaration declaration) {
+        int modifiers = declaration.getModifiers();
+
+        if (Modifier.isPublic(modifiers)) {
+            return Visibility.PUBLIC;
+        }
+        if (Modifier.isProtected(modifiers)) {
+            return Visibility.PROTECTED;
+        }
+        if (Modifier.isPrivate(modifiers)) {
+            return Visibility.PRIVATE;
+        }
+
+        return Visibility.PACKAGE_PRIVATE;
+    }
+
+    /**
+     * Retrieves the modifier keyword of a visibility (or null if it is expressed by the absence
+     * of a keyword).
+     */
+    @Nullable
+    private static String getKeyword(@Nonnull Visibility visibility) {
+        switch (visibility) {
+            case PUBLIC:
+                return "public";
+            case PROTECTED:
+                return "protected";
+            case PRIVATE:
+                return "private";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Represents a single replacement within the source.
+     */
+    private static class Edit {
+        private final int start;
+        private final int end;
+        private final String replacement;
+
+        private Edit(int start, int end, @Nonnull String replacement) {
+            this.start = start;
+            this.end = end;
+            this.replacement = replacement;
+        }
+    }
+}
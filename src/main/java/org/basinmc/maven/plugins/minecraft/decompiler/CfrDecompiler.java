@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import com.google.common.io.ByteStreams;
+
+import org.benf.cfr.reader.api.CfrDriver;
+import org.benf.cfr.reader.api.OutputSinkFactory;
+import org.benf.cfr.reader.api.SinkReturns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decompiles classes using CFR.
+ *
+ * Options are passed to CFR as-is (e.g. "renameillegalidents" = "true") and override the plugin
+ * defaults.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class CfrDecompiler implements Decompiler {
+    public static final String NAME = "cfr";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decompile(@Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException {
+        Map<String, String> cfrOptions = new HashMap<>();
+        cfrOptions.put("showversion", "false");
+        cfrOptions.put("silent", "true");
+
+        if (!libraries.isEmpty()) {
+            cfrOptions.put("extraclasspath", libraries.stream().map((l) -> l.toAbsolutePath().toString()).collect(Collectors.joining(File.pathSeparator)));
+        }
+
+        cfrOptions.putAll(options);
+
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(output))) {
+            // CFR decompiles classes on the calling thread and thus all sink invocations occur
+            // sequentially
+            List<String> errors = new ArrayList<>();
+
+            CfrDriver driver = new CfrDriver.Builder()
+                    .withOptions(cfrOptions)
+                    .withOutputSink(new OutputSinkFactory() {
+                        @Override
+                        public List<SinkClass> getSupportedSinks(SinkType sinkType, Collection<SinkClass> available) {
+                            if (sinkType == SinkType.JAVA && available.contains(SinkClass.DECOMPILED)) {
+                                return Collections.singletonList(SinkClass.DECOMPILED);
+                            }
+
+                            return Collections.singletonList(SinkClass.STRING);
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public <T> Sink<T> getSink(SinkType sinkType, SinkClass sinkClass) {
+                            if (sinkType == SinkType.JAVA && sinkClass == SinkClass.DECOMPILED) {
+                                return (s) -> writeSource(outputStream, (SinkReturns.Decompiled) s);
+                            }
+
+                            if (sinkType == SinkType.EXCEPTION) {
+                                return (s) -> errors.add(String.valueOf(s));
+                            }
+
+                            return (s) -> {
+                            };
+                        }
+                    })
+                    .build();
+
+            driver.analyse(Collections.singletonList(input.toAbsolutePath().toString()));
+
+            if (!errors.isEmpty()) {
+                throw new IOException("CFR reported " + errors.size() + " error(s): " + errors.get(0));
+            }
+
+            copyResources(input, outputStream);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes a decompiled class into the output archive.
+     */
+    private static void writeSource(@Nonnull ZipOutputStream outputStream, @Nonnull SinkReturns.Decompiled decompiled) {
+        String packageName = decompiled.getPackageName();
+        String name = (packageName == null || packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/") + decompiled.getClassName() + ".java";
+
+        try {
+            outputStream.putNextEntry(new ZipEntry(name));
+            outputStream.write(decompiled.getJava().getBytes(StandardCharsets.UTF_8));
+            outputStream.closeEntry();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Copies all non-class entries of the input archive into the output archive.
+     */
+    private static void copyResources(@Nonnull Path input, @Nonnull ZipOutputStream outputStream) throws IOException {
+        try (ZipFile file = new ZipFile(input.toFile())) {
+            Enumeration<? extends ZipEntry> entries = file.entries();
+
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+
+                if (entry.isDirectory() || entry.getName().endsWith(".class")) {
+                    continue;
+                }
+
+                outputStream.putNextEntry(new ZipEntry(entry.getName()));
+
+                try (InputStream inputStream = file.getInputStream(entry)) {
+                    ByteStreams.copy(inputStream, (OutputStream) outputStream);
+                }
+
+                outputStream.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decompiles classes in chunks of whole packages in order to bound the memory required by the
+ * delegate decompiler.
+ *
+ * Each chunk is decompiled against a copy of all remaining classes which has their method bodies
+ * removed (and thus still provides type information without passing the chunk's own classes
+ * twice) and its sources are appended to the output archive before the next chunk is processed.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class ChunkedDecompiler implements Decompiler {
+    private final Decompiler delegate;
+    private final long chunkSize;
+
+    /**
+     * @param delegate the decompiler to pass each chunk to.
+     * @param chunkSize the maximum amount of class data in bytes per chunk.
+     */
+    public ChunkedDecompiler(@Nonnull Decompiler delegate, @Nonnegative long chunkSize) {
+        this.delegate = delegate;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decompile(@Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException {
+        Path workingDirectory = Files.createTempDirectory(output.toAbsolutePath().getParent(), "chunk");
+
+        try (ZipFile file = new ZipFile(input.toFile())) {
+            Path stubs = workingDirectory.resolve("stubs.jar");
+            ClassPartitions.writeStubs(file, stubs);
+
+            Path chunk = workingDirectory.resolve("chunk.jar");
+            Path chunkLibrary = workingDirectory.resolve("chunk.lib.jar");
+            Path chunkOutput = workingDirectory.resolve("chunk.src.jar");
+
+            List<Path> chunkLibraries = new ArrayList<>(libraries.size() + 1);
+            chunkLibraries.add(chunkLibrary);
+            chunkLibraries.addAll(libraries);
+
+            try (ZipFile stubFile = new ZipFile(stubs.toFile()); ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+                for (Set<String> partition : ClassPartitions.chunked(file, this.chunkSize)) {
+                    ClassPartitions.write(file, partition, chunk);
+                    ClassPartitions.writeLibrary(stubFile, partition, chunkLibrary);
+
+                    try {
+                        this.delegate.decompile(chunk, chunkLibraries, chunkOutput, options);
+                        ClassPartitions.appendSources(chunkOutput, outputStream);
+                    } finally {
+                        Files.deleteIfExists(chunk);
+                        Files.deleteIfExists(chunkLibrary);
+                        Files.deleteIfExists(chunkOutput);
+                    }
+                }
+
+                ClassPartitions.appendResources(file, outputStream);
+            }
+        } finally {
+            ClassPartitions.delete(workingDirectory);
+        }
+    }
+}
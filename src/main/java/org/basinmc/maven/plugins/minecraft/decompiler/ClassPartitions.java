@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import com.google.common.io.ByteStreams;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * Provides utility methods for splitting class archives into partitions which are decompiled
+ * separately.
+ *
+ * Partitions are expressed as sets of top level class names (e.g. "net/minecraft/block/Block")
+ * since decompilers emit inner classes as part of their outer class.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+final class ClassPartitions {
+
+    private ClassPartitions() {
+    }
+
+    /**
+     * Splits the classes of an archive into the supplied amount of partitions of roughly equal
+     * size.
+     */
+    @Nonnull
+    static List<Set<String>> balanced(@Nonnull ZipFile file, @Nonnegative int count) {
+        Map<String, Long> groups = groups(file);
+
+        // groups are assigned to the smallest partition in descending order of their size which
+        // yields reasonably balanced partitions
+        List<Set<String>> partitions = new ArrayList<>();
+        long[] sizes = new long[Math.max(1, Math.min(count, groups.size()))];
+
+        for (int i = 0; i < sizes.length; ++i) {
+            partitions.add(new HashSet<>());
+        }
+
+        groups.entrySet().stream()
+                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
+                .forEachOrdered((e) -> {
+                    int smallest = 0;
+
+                    for (int i = 1; i < sizes.length; ++i) {
+                        if (sizes[i] < sizes[smallest]) {
+                            smallest = i;
+                        }
+                    }
+
+                    partitions.get(smallest).add(e.getKey());
+                    sizes[smallest] += e.getValue();
+                });
+
+        return partitions;
+    }
+
+    /**
+     * Splits the classes of an archive into chunks of whole packages which do not exceed the
+     * supplied amount of bytes.
+     *
+     * Packages which exceed the limit on their own are split into multiple chunks.
+     */
+    @Nonnull
+    static List<Set<String>> chunked(@Nonnull ZipFile file, @Nonnegative long chunkSize) {
+        Map<String, Map<String, Long>> packages = new TreeMap<>();
+
+        groups(file).forEach((name, size) -> {
+            int offset = name.lastIndexOf('/');
+            packages.computeIfAbsent((offset == -1 ? "" : name.substring(0, offset)), (p) -> new TreeMap<>()).put(name, size);
+        });
+
+        List<Set<String>> chunks = new ArrayList<>();
+        Set<String> chunk = new HashSet<>();
+        long size = 0;
+
+        for (Map<String, Long> classes : packages.values()) {
+            long packageSize = classes.values().stream().mapToLong(Long::longValue).sum();
+
+            // packages are kept together whenever they fit into a chunk (starting a new chunk if
+            // necessary) and split on a per-class basis otherwise
+            if (packageSize <= chunkSize && size + packageSize > chunkSize && !chunk.isEmpty()) {
+                chunks.add(chunk);
+                chunk = new HashSet<>();
+                size = 0;
+            }
+
+            for (Map.Entry<String, Long> entry : classes.entrySet()) {
+                if (size + entry.getValue() > chunkSize && !chunk.isEmpty()) {
+                    chunks.add(chunk);
+                    chunk = new HashSet<>();
+                    size = 0;
+                }
+
+                chunk.add(entry.getKey());
+                size += entry.getValue();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Computes the uncompressed size of every group of classes within an archive.
+     */
+    @Nonnull
+    private static Map<String, Long> groups(@Nonnull ZipFile file) {
+        Map<String, Long> groups = new TreeMap<>();
+        Enumeration<ZipArchiveEntry> entries = file.getEntries();
+
+        while (entries.hasMoreElements()) {
+            ZipArchiveEntry entry = entries.nextElement();
+
+            if (isClass(entry)) {
+                groups.merge(getTopLevelName(entry.getName()), Math.max(1, entry.getSize()), Long::sum);
+            }
+        }
+
+        return groups;
+    }
+
+    /**
+     * Writes all classes of a partition into a separate archive.
+     */
+    static void write(@Nonnull ZipFile file, @Nonnull Set<String> partition, @Nonnull Path output) throws IOException {
+        try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+            file.copyRawEntries(outputStream, (e) -> isClass(e) && partition.contains(getTopLevelName(e.getName())));
+        }
+    }
+
+    /**
+     * Writes a copy of all classes within an archive with their method bodies removed.
+     *
+     * The resulting archive retains all type information (hierarchy, signatures, inner class
+     * attributes) while being a fraction of the size of the original archive and is thus suitable
+     * as a library for decompiling a subset of the archive.
+     */
+    static void writeStubs(@Nonnull ZipFile file, @Nonnull Path output) throws IOException {
+        try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+            Enumeration<ZipArchiveEntry> entries = file.getEntries();
+
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+
+                if (!isClass(entry)) {
+                    continue;
+                }
+
+                ClassWriter writer = new ClassWriter(0);
+
+                try (InputStream inputStream = file.getInputStream(entry)) {
+                    new ClassReader(ByteStreams.toByteArray(inputStream)).accept(writer, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+                }
+
+                outputStream.putArchiveEntry(new ZipArchiveEntry(entry.getName()));
+                outputStream.write(writer.toByteArray());
+                outputStream.closeArchiveEntry();
+            }
+        }
+    }
+
+    /**
+     * Writes a library for decompiling a partition which consists of all stubs except for the
+     * partition's own classes.
+     *
+     * Decompilers would otherwise encounter each class of the partition twice (once as input and
+     * once as library) and may resolve references against the stub rather than the input.
+     */
+    static void writeLibrary(@Nonnull ZipFile stubs, @Nonnull Set<String> partition, @Nonnull Path output) throws IOException {
+        try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+            stubs.copyRawEntries(outputStream, (e) -> isClass(e) && !partition.contains(getTopLevelName(e.getName())));
+        }
+    }
+
+    /**
+     * Appends all sources within a decompiled archive to an output archive.
+     */
+    static void appendSources(@Nonnull Path source, @Nonnull ZipArchiveOutputStream outputStream) throws IOException {
+        try (ZipFile file = new ZipFile(source.toFile())) {
+            file.copyRawEntries(outputStream, (e) -> !e.isDirectory() && e.getName().endsWith(".java"));
+        }
+    }
+
+    /**
+     * Appends all resources (e.g. non-class entries) of an archive to an output archive.
+     */
+    static void appendResources(@Nonnull ZipFile file, @Nonnull ZipArchiveOutputStream outputStream) throws IOException {
+        file.copyRawEntries(outputStream, (e) -> !e.isDirectory() && !e.getName().endsWith(".class"));
+    }
+
+    /**
+     * Checks whether an entry represents a class file.
+     */
+    private static boolean isClass(@Nonnull ZipArchiveEntry entry) {
+        return !entry.isDirectory() && entry.getName().endsWith(".class");
+    }
+
+    /**
+     * Retrieves the name of the top level class a class file belongs to.
+     */
+    @Nonnull
+    private static String getTopLevelName(@Nonnull String name) {
+        int nameOffset = name.lastIndexOf('/') + 1;
+        int innerOffset = name.indexOf('$', nameOffset);
+
+        return (innerOffset == -1 ? name.substring(0, name.length() - 6) : name.substring(0, innerOffset));
+    }
+
+    /**
+     * Recursively deletes a directory.
+     */
+    static void delete(@Nonnull Path directory) throws IOException {
+        List<Path> paths;
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides a backend capable of converting a class archive into a source archive.
+ *
+ * Implementations are located via {@link ServiceLoader} and may thus be supplied by additional
+ * plugin dependencies.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public interface Decompiler {
+
+    /**
+     * Locates the decompiler with the supplied name.
+     */
+    @Nonnull
+    static Optional<Decompiler> find(@Nonnull String name) {
+        for (Decompiler decompiler : ServiceLoader.load(Decompiler.class, Decompiler.class.getClassLoader())) {
+            if (decompiler.getName().equals(name)) {
+                return Optional.of(decompiler);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Retrieves the name by which this decompiler is selected within the plugin configuration.
+     */
+    @Nonnull
+    String getName();
+
+    /**
+     * Decompiles all classes within the supplied archive.
+     *
+     * @see #decompile(Path, List, Path, Map)
+     */
+    default void decompile(@Nonnull Path input, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException {
+        this.decompile(input, Collections.emptyList(), output, options);
+    }
+
+    /**
+     * Decompiles all classes within the supplied archive.
+     *
+     * The resulting archive is expected to contain one source file per top level class as well as
+     * an unaltered copy of all remaining (non-class) entries of the input archive. Classes within
+     * the supplied libraries are solely used to resolve type information and are not decompiled.
+     *
+     * @param input a class archive.
+     * @param libraries a list of class archives which are referenced by the input archive.
+     * @param output a source archive.
+     * @param options a set of decompiler specific options (which override the defaults of the
+     * implementation).
+     * @throws IOException when reading the input or writing the output fails or the decompiler
+     * reports an error.
+     */
+    void decompile(@Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException;
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Provides the entry point of forked decompiler processes.
+ *
+ * Workers read one request per line from standard input and respond with a single line on
+ * standard output once the request has been processed. Requests consist of tab separated fields
+ * (the decompiler name, the input archive, a list of libraries separated by the platform path
+ * separator, the output archive and an arbitrary amount of key=value options) while responses are
+ * either "ok" or "error" followed by a tab and an error message. Workers exit once their standard
+ * input is closed.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public final class DecompilerWorker {
+    static final String RESPONSE_OK = "ok";
+    static final String RESPONSE_ERROR = "error";
+    private static final String SEPARATOR = "\t";
+
+    private DecompilerWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        // decompilers may write diagnostics to standard output and thus the original stream is
+        // reserved for responses while all other output is passed on to standard error
+        PrintStream protocol = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+        System.setOut(System.err);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            protocol.println(handle(line));
+        }
+    }
+
+    /**
+     * Processes a single request.
+     */
+    @Nonnull
+    private static String handle(@Nonnull String request) {
+        try {
+            String[] fields = request.split(SEPARATOR, -1);
+
+            if (fields.length < 4) {
+                return RESPONSE_ERROR + SEPARATOR + "Malformed request";
+            }
+
+            Decompiler decompiler = Decompiler.find(fields[0]).orElse(null);
+
+            if (decompiler == null) {
+                return RESPONSE_ERROR + SEPARATOR + "No such decompiler: " + fields[0];
+            }
+
+            List<Path> libraries = new ArrayList<>();
+
+            for (String library : fields[2].split(File.pathSeparator)) {
+                if (!library.isEmpty()) {
+                    libraries.add(Paths.get(library));
+                }
+            }
+
+            Map<String, String> options = new HashMap<>();
+
+            for (int i = 4; i < fields.length; ++i) {
+                int separator = fields[i].indexOf('=');
+
+                if (separator != -1) {
+                    options.put(fields[i].substring(0, separator), fields[i].substring(separator + 1));
+                }
+            }
+
+            decompiler.decompile(Paths.get(fields[1]), libraries, Paths.get(fields[3]), options);
+            return RESPONSE_OK;
+        } catch (Throwable ex) {
+            return RESPONSE_ERROR + SEPARATOR + String.valueOf(ex).replaceAll("[\r\n\t]+", " ");
+        }
+    }
+
+    /**
+     * Encodes a request.
+     */
+    @Nonnull
+    static String encode(@Nonnull String decompiler, @Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) {
+        StringBuilder builder = new StringBuilder();
+
+        builder.append(decompiler)
+                .append(SEPARATOR).append(input.toAbsolutePath())
+                .append(SEPARATOR);
+
+        for (int i = 0; i < libraries.size(); ++i) {
+            if (i != 0) {
+                builder.append(File.pathSeparator);
+            }
+
+            builder.append(libraries.get(i).toAbsolutePath());
+        }
+
+        builder.append(SEPARATOR).append(output.toAbsolutePath());
+        options.forEach((k, v) -> builder.append(SEPARATOR).append(k).append('=').append(v));
+
+        return builder.toString();
+    }
+
+    /**
+     * Extracts the error message from a response (or returns null if the response indicates
+     * success).
+     */
+    @Nullable
+    static String decodeError(@Nonnull String response) {
+        if (RESPONSE_OK.equals(response)) {
+            return null;
+        }
+
+        if (response.startsWith(RESPONSE_ERROR + SEPARATOR)) {
+            return response.substring(RESPONSE_ERROR.length() + SEPARATOR.length());
+        }
+
+        return "Unexpected response: " + response;
+    }
+}
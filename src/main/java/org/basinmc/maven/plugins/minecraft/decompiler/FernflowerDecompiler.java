@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decompiles classes using the Forge fork of Fernflower.
+ *
+ * Options are passed to Fernflower as-is (e.g. "din" = "1") and override the plugin defaults.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class FernflowerDecompiler implements Decompiler {
+    public static final String NAME = "fernflower";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decompile(@Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException {
+        Map<String, String> ffFlags = new HashMap<>();
+        ffFlags.put(IFernflowerPreferences.DECOMPILE_INNER, "1");
+        ffFlags.put(IFernflowerPreferences.REMOVE_BRIDGE, "0");
+        ffFlags.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+        ffFlags.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+        ffFlags.put(IFernflowerPreferences.ASCII_STRING_CHARACTERS, "1");
+        ffFlags.putAll(options);
+
+        // Fernflower writes archives into a directory using their original file name and thus
+        // the result is moved into place once decompilation completes
+        Path workingDirectory = Files.createTempDirectory(output.toAbsolutePath().getParent(), "ff");
+
+        try {
+            List<String> args = new ArrayList<>();
+
+            ffFlags.forEach((pref, value) -> args.add("-" + pref + "=" + value));
+            args.add("-log=ERROR");
+            libraries.forEach((l) -> args.add("-e=" + l.toAbsolutePath().toString()));
+            args.add(input.toAbsolutePath().toString());
+            args.add(workingDirectory.toAbsolutePath().toString());
+
+            ConsoleDecompiler.main(args.toArray(new String[0]));
+
+            Path result = workingDirectory.resolve(input.getFileName());
+
+            if (Files.notExists(result)) {
+                throw new IOException("Unknown fernflower error");
+            }
+
+            Files.move(result, output, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            delete(workingDirectory);
+        }
+    }
+
+    /**
+     * Recursively deletes a directory.
+     */
+    private static void delete(@Nonnull Path directory) throws IOException {
+        List<Path> paths;
+
+        try (Stream<Path> stream = Files.walk(directory)) {
+            paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Decompiles classes within one or more forked worker JVMs.
+ *
+ * The input archive is split into partitions of roughly equal size (keeping inner classes along
+ * with their outer class) which are distributed among the workers. Each partition is decompiled
+ * against a stripped copy of all remaining classes in order to retain type information. When a
+ * chunk size is given, the archive is split into chunks of whole packages instead which are handed
+ * to the workers as they become available. Workers are
+ * started with their own set of JVM arguments and thus permit tuning heap and garbage collection
+ * independently of the Maven JVM.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class ForkedDecompiler implements Decompiler {
+    private static final long EXIT_TIMEOUT = 10;
+
+    private final String decompiler;
+    private final int workers;
+    private final long chunkSize;
+    private final List<String> jvmArguments;
+    private final long timeout;
+    private final Consumer<String> errorConsumer;
+
+    /**
+     * @param decompiler the name of the decompiler to execute within the workers.
+     * @param workers the amount of worker processes to fork.
+     * @param chunkSize the maximum amount of class data in bytes to pass to a worker at once (or
+     * zero to split the archive evenly between all workers).
+     * @param jvmArguments a list of arguments to pass to every worker JVM (e.g. -Xmx2G).
+     * @param timeout the amount of seconds to wait for a worker to process a single request (or
+     * zero to wait indefinitely).
+     * @param errorConsumer a consumer which receives every line written to standard error by the
+     * workers.
+     */
+    public ForkedDecompiler(@Nonnull String decompiler, @Nonnegative int workers, @Nonnegative long chunkSize, @Nonnull List<String> jvmArguments, @Nonnegative long timeout, @Nonnull Consumer<String> errorConsumer) {
+        this.decompiler = decompiler;
+        this.workers = Math.max(1, workers);
+        this.chunkSize = Math.max(0, chunkSize);
+        this.jvmArguments = jvmArguments;
+        this.timeout = Math.max(0, timeout);
+        this.errorConsumer = errorConsumer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Nonnull
+    @Override
+    public String getName() {
+        return this.decompiler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decompile(@Nonnull Path input, @Nonnull List<Path> libraries, @Nonnull Path output, @Nonnull Map<String, String> options) throws IOException {
+        Path workingDirectory = Files.createTempDirectory(output.toAbsolutePath().getParent(), "fork");
+
+        try (ZipFile file = new ZipFile(input.toFile())) {
+            Path stubs = workingDirectory.resolve("stubs.jar");
+            ClassPartitions.writeStubs(file, stubs);
+
+            // in chunked mode partitions are bounded in size in order to limit the heap required
+            // by every worker
+            List<Set<String>> partitions = (this.chunkSize != 0 ? ClassPartitions.chunked(file, this.chunkSize) : ClassPartitions.balanced(file, this.workers));
+
+            Queue<String> requests = new ConcurrentLinkedQueue<>();
+            List<Path> outputs = new ArrayList<>(partitions.size());
+
+            try (ZipFile stubFile = new ZipFile(stubs.toFile())) {
+                for (int i = 0; i < partitions.size(); ++i) {
+                    Path partition = workingDirectory.resolve("partition-" + i + ".jar");
+                    Path partitionLibrary = workingDirectory.resolve("partition-" + i + ".lib.jar");
+                    Path partitionOutput = workingDirectory.resolve("partition-" + i + ".src.jar");
+
+                    ClassPartitions.write(file, partitions.get(i), partition);
+                    ClassPartitions.writeLibrary(stubFile, partitions.get(i), partitionLibrary);
+
+                    // every partition is decompiled against the stubs of all remaining classes
+                    // which retains type information without passing its own classes twice
+                    List<Path> contextLibraries = new ArrayList<>(libraries.size() + 1);
+                    contextLibraries.add(partitionLibrary);
+                    contextLibraries.addAll(libraries);
+
+                    requests.add(DecompilerWorker.encode(this.decompiler, partition, contextLibraries, partitionOutput, options));
+                    outputs.add(partitionOutput);
+                }
+            }
+
+            this.execute(requests, Math.min(this.workers, partitions.size()));
+
+            try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(output.toFile())) {
+                for (Path partitionOutput : outputs) {
+                    ClassPartitions.appendSources(partitionOutput, outputStream);
+                }
+
+                ClassPartitions.appendResources(file, outputStream);
+            }
+        } finally {
+            ClassPartitions.delete(workingDirectory);
+        }
+    }
+
+    /**
+     * Processes a queue of requests using the supplied amount of workers.
+     */
+    private void execute(@Nonnull Queue<String> requests, @Nonnegative int workers) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workers));
+
+        // workers which fail to respond in time are destroyed by the watchdog which in turn
+        // causes their pending request to fail
+        ScheduledExecutorService watchdog = (this.timeout == 0 ? null : Executors.newSingleThreadScheduledExecutor());
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+
+            for (int i = 0; i < workers; ++i) {
+                futures.add(executor.submit(() -> {
+                    try (Worker worker = new Worker(this.jvmArguments, watchdog, this.timeout, this.errorConsumer)) {
+                        String request;
+
+                        while ((request = requests.poll()) != null) {
+                            worker.execute(request);
+                        }
+                    } catch (IOException ex) {
+                        // remaining workers stop after their current request
+                        requests.clear();
+                        throw ex;
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException("Decompiler worker failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while awaiting decompiler workers");
+        } finally {
+            executor.shutdownNow();
+
+            if (watchdog != null) {
+                watchdog.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Represents a single forked worker process.
+     */
+    private static class Worker implements Closeable {
+        private final Process process;
+        private final BufferedWriter writer;
+        private final BufferedReader reader;
+        private final Thread errorThread;
+        private final ScheduledExecutorService watchdog;
+        private final long timeout;
+
+        Worker(@Nonnull List<String> jvmArguments, @Nullable ScheduledExecutorService watchdog, @Nonnegative long timeout, @Nonnull Consumer<String> errorConsumer) throws IOException {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", (File.pathSeparatorChar == ';' ? "java.exe" : "java")).toString());
+            command.addAll(jvmArguments);
+            command.add("-cp");
+            command.add(getClassPath());
+            command.add(DecompilerWorker.class.getName());
+
+            this.process = new ProcessBuilder(command).start();
+            this.writer = new BufferedWriter(new OutputStreamWriter(this.process.getOutputStream(), StandardCharsets.UTF_8));
+            this.reader = new BufferedReader(new InputStreamReader(this.process.getInputStream(), StandardCharsets.UTF_8));
+            this.errorThread = drain(this.process.getErrorStream(), errorConsumer);
+            this.watchdog = watchdog;
+            this.timeout = timeout;
+        }
+
+        /**
+         * Submits a request to the worker and awaits its completion.
+         */
+        void execute(@Nonnull String request) throws IOException {
+            this.writer.write(request);
+            this.writer.newLine();
+            this.writer.flush();
+
+            ScheduledFuture<?> deadline = (this.watchdog == null ? null : this.watchdog.schedule(this.process::destroyForcibly, this.timeout, TimeUnit.SECONDS));
+            String response = null;
+            IOException failure = null;
+
+            try {
+                response = this.reader.readLine();
+            } catch (IOException ex) {
+                failure = ex;
+            }
+
+            // the watchdog has destroyed the worker when its deadline can no longer be cancelled
+            if (deadline != null && !deadline.cancel(false)) {
+                throw new IOException("Decompiler worker did not respond within " + this.timeout + " seconds");
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            if (response == null) {
+                throw new IOException("Decompiler worker exited unexpectedly");
+            }
+
+            String error = DecompilerWorker.decodeError(response);
+
+            if (error != null) {
+                throw new IOException(error);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                this.writer.close();
+
+                if (!this.process.waitFor(EXIT_TIMEOUT, TimeUnit.SECONDS)) {
+                    throw new IOException("Decompiler worker did not exit within " + EXIT_TIMEOUT + " seconds");
+                }
+
+                this.errorThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while awaiting decompiler worker exit");
+            } finally {
+                if (this.process.isAlive()) {
+                    this.process.destroyForcibly();
+                }
+            }
+        }
+
+        /**
+         * Retrieves the class path of the plugin.
+         */
+        @Nonnull
+        private static String getClassPath() throws IOException {
+            ClassLoader loader = DecompilerWorker.class.getClassLoader();
+
+            if (!(loader instanceof URLClassLoader)) {
+                return System.getProperty("java.class.path");
+            }
+
+            List<String> elements = new ArrayList<>();
+
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                try {
+                    elements.add(Paths.get(url.toURI()).toString());
+                } catch (URISyntaxException | IllegalArgumentException ex) {
+                    throw new IOException("Unsupported class path element: " + url, ex);
+                }
+            }
+
+            return String.join(File.pathSeparator, elements);
+        }
+
+        /**
+         * Starts a background thread which passes every line of a stream to the supplied consumer.
+         */
+        @Nonnull
+        private static Thread drain(@Nonnull InputStream inputStream, @Nonnull Consumer<String> consumer) {
+            Thread thread = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                    String line;
+
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty()) {
+                            consumer.accept(line);
+                        }
+                    }
+                } catch (IOException ignore) {
+                    // the stream is closed forcefully when a process is destroyed
+                }
+            }, "decompiler-worker (stderr)");
+
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+    }
+}
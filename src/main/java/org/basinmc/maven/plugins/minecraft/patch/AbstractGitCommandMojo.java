@@ -16,16 +16,17 @@
  */
 package org.basinmc.maven.plugins.minecraft.patch;
 
-import com.google.common.base.Splitter;
-
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.basinmc.maven.plugins.minecraft.AbstractMinecraftMojo;
-import org.codehaus.plexus.util.IOUtil;
 
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.annotation.Nonnull;
 
@@ -47,37 +48,80 @@ public abstract class AbstractGitCommandMojo extends AbstractMinecraftMojo {
 
     /**
      * Executes a command as specified by the supplied process builder.
+     *
+     * Standard output is passed on to the log as the output arrives while standard error is passed
+     * on to the debug log and only reported as an error when the command fails (git reports
+     * progress and expected conditions on standard error).
      */
     protected int execute(@Nonnull ProcessBuilder builder) throws IOException, InterruptedException {
-        final Process process = builder.start();
-
-        if (process.waitFor() != 0) {
-            try (InputStream errorStream = process.getErrorStream()) {
-                Splitter.onPattern("\r?\n")
-                        .omitEmptyStrings()
-                        .split(IOUtil.toString(errorStream))
-                        .forEach(this.getLog()::error);
+        return this.execute(builder, this.getLog()::info);
+    }
+
+    /**
+     * Executes a command as specified by the supplied process builder and passes all lines
+     * written to its standard output to the supplied consumer.
+     */
+    protected int execute(@Nonnull ProcessBuilder builder, @Nonnull Consumer<String> outputConsumer) throws IOException, InterruptedException {
+        return this.execute(builder, outputConsumer, true);
+    }
+
+    /**
+     * Executes a command which is expected to fail under regular circumstances (e.g. when aborting
+     * an operation which may not be in progress) and thus only passes its output to the debug log.
+     */
+    protected int executeQuietly(@Nonnull ProcessBuilder builder) throws IOException, InterruptedException {
+        return this.execute(builder, this.getLog()::debug, false);
+    }
+
+    /**
+     * Executes a command and optionally reports its standard error output when it fails.
+     */
+    private int execute(@Nonnull ProcessBuilder builder, @Nonnull Consumer<String> outputConsumer, boolean reportErrors) throws IOException, InterruptedException {
+        // git commands are always passed to the previously detected installation
+        if ("git".equals(builder.command().get(0))) {
+            GitInstallation installation = this.getGitInstallation().orElse(null);
+
+            if (installation != null) {
+                builder.command().set(0, installation.getExecutable().toString());
             }
         }
 
-        return process.exitValue();
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        int exitCode = new ProcessRunner(outputConsumer, (l) -> {
+            this.getLog().debug(l);
+            errors.add(l);
+        }, TimeUnit.SECONDS.toMillis(this.getGitTimeout())).run(builder);
+
+        if (exitCode != 0 && reportErrors) {
+            errors.forEach(this.getLog()::error);
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * Retrieves the local git installation (if any).
+     *
+     * Note: The installation is only detected once per search path and JVM.
+     */
+    @Nonnull
+    protected Optional<GitInstallation> getGitInstallation() {
+        return GitInstallation.detect(TimeUnit.SECONDS.toMillis(this.getGitTimeout()));
     }
 
     /**
      * Verifies whether git is installed and available within the current system search path.
      */
     protected boolean isGitInstalled() {
-        try {
-            return this.execute(new ProcessBuilder("git", "--version")) == 0;
-        } catch (FileNotFoundException ex) {
-            this.getLog().error("Failed to locate git in executable search path: " + ex.getMessage());
-        } catch (InterruptedException ex) {
-            this.getLog().error("Received interrupt while waiting for git to exit: " + ex.getMessage());
-        } catch (IOException ex) {
-            this.getLog().error("Failed to access git executable: " + ex.getMessage(), ex);
+        GitInstallation installation = this.getGitInstallation().orElse(null);
+
+        if (installation == null) {
+            this.getLog().error("Failed to locate git in executable search path");
+            return false;
         }
 
-        return false;
+        this.getLog().debug("Using git " + installation.getVersion() + " at " + installation.getExecutable());
+        return true;
     }
 
     /**
@@ -16,18 +16,27 @@
  */
 package org.basinmc.maven.plugins.minecraft.patch;
 
+import com.google.common.hash.HashCode;
+
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnull;
 
 /**
  * Applies a set of patches from the source directory.
@@ -41,6 +50,8 @@ import java.util.List;
         defaultPhase = LifecyclePhase.GENERATE_SOURCES
 )
 public class ApplyPatchesMojo extends AbstractGitCommandMojo {
+    private static final String PATCH_STATE = "basin/patch-state";
+    private static final String UPSTREAM_REFERENCE = "upstream";
 
     /**
      * {@inheritDoc}
@@ -56,19 +67,118 @@ public class ApplyPatchesMojo extends AbstractGitCommandMojo {
             return;
         }
 
+        final List<Path> patches;
+
+        try (Stream<Path> stream = Files.walk(this.getPatchDirectory().toPath())) {
+            patches = stream
+                    .filter((p) -> p.getFileName().toString().endsWith(".patch"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException ex) {
+            throw new MojoFailureException("Cannot access one or more patch files: " + ex.getMessage(), ex);
+        }
+
+        try (Repository repository = new FileRepositoryBuilder()
+                .setWorkTree(this.getSourceDirectory())
+                .setMustExist(true)
+                .build()) {
+            Path statePath = repository.getDirectory().toPath().resolve(PATCH_STATE);
+            ObjectId upstream = repository.resolve(UPSTREAM_REFERENCE);
+
+            if (upstream == null) {
+                throw new MojoFailureException("Cannot resolve upstream state of module repository");
+            }
+
+            List<HashCode> hashes = new ArrayList<>(patches.size());
+
+            for (Path patch : patches) {
+                hashes.add(PatchState.hash(patch));
+            }
+
+            // when neither the patches nor the upstream state changed since the last execution
+            // and the repository is still at its resulting commit, there is nothing left to do
+            String fingerprint = PatchState.fingerprint(upstream, this.getPatchDirectory().toPath(), patches, hashes);
+            PatchState state = PatchState.read(statePath);
+
+            if (state != null && state.getFingerprint().map(fingerprint::equals).orElse(false) && state.getResult().equals(repository.resolve(Constants.HEAD))) {
+                this.getLog().info("Skipping patching process - Patches and upstream are unchanged");
+                return;
+            }
+
+            // otherwise we'll locate the first patch which differs from the previous execution
+            // and resume from the commit produced by its predecessor
+            List<PatchState.Entry> entries = (state == null ? new ArrayList<>() : state.getUnchangedEntries(upstream, hashes, repository::hasObject));
+            ObjectId base = (entries.isEmpty() ? upstream : entries.get(entries.size() - 1).getCommit());
+
+            if (!entries.isEmpty()) {
+                this.getLog().info("Skipping " + entries.size() + " unchanged patches");
+            }
+
+            // in batch mode (as well as dry runs) all remaining patches are checked against their
+            // expected pre-images in order to report all conflicts at once and before the working
+            // tree is reset (conflicts cannot be resolved without user interaction anyways)
+            if (this.isDryRun() || !this.getSettings().isInteractiveMode()) {
+                if (this.checkPatches(repository, base, patches.subList(entries.size(), patches.size()))) {
+                    throw new MojoFailureException("One or more patches do not apply cleanly");
+                }
+
+                if (this.isDryRun()) {
+                    this.getLog().info("All patches apply cleanly - Skipping patching process due to dry run");
+                    return;
+                }
+            }
+
+            try {
+                this.applyPatches(repository, base, patches, hashes, entries);
+            } finally {
+                ObjectId head = repository.resolve(Constants.HEAD);
+
+                if (head != null) {
+                    // partially applied patch sets are recorded without fingerprint in order to
+                    // resume from their last successfully applied patch
+                    new PatchState(upstream, (entries.size() == patches.size() ? fingerprint : null), head, entries).write(statePath);
+                }
+            }
+        } catch (IOException ex) {
+            throw new MojoFailureException("Could not access module repository: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Checks whether the supplied patches apply cleanly on top of a base commit and reports all
+     * conflicts.
+     *
+     * @return true if one or more conflicts have been found, false otherwise.
+     */
+    private boolean checkPatches(@Nonnull Repository repository, @Nonnull ObjectId base, @Nonnull List<Path> patches) throws IOException {
+        List<PatchChecker.Conflict> conflicts = new PatchChecker(repository, this.getThreads()).check(base, patches);
+
+        conflicts.forEach((c) -> this.getLog().error("Patch " + c.getPatch().toString() + " does not apply cleanly to " + c.getFile() + ": " + c.getReason()));
+
+        return !conflicts.isEmpty();
+    }
+
+    /**
+     * Resets the repository to the supplied base commit and applies all patches which follow the
+     * already applied entries in order.
+     *
+     * The list of entries is updated with every successfully applied patch until a patch is
+     * skipped.
+     */
+    private void applyPatches(@Nonnull Repository repository, @Nonnull ObjectId base, @Nonnull List<Path> patches, @Nonnull List<HashCode> hashes, @Nonnull List<PatchState.Entry> entries) throws IOException, MojoFailureException {
         // abort any pending merges before attempting anything else and reset the repository back
         // to its original state
         try {
             // Note: We are ignoring errors reported by git here since newer versions of git seem to
             // consider invoking git am --abort on an repository outside of an archive merging state
             // to be an error
-            if (this.execute(new ProcessBuilder("git", "am", "--abort").directory(this.getSourceDirectory())) != 0) {
+            if (this.executeQuietly(new ProcessBuilder("git", "am", "--abort").directory(this.getSourceDirectory())) != 0) {
                 this.getLog().info("No previous merge operation in process - Resuming operation");
             } else {
                 this.getLog().warn("Aborted previous merge operation");
             }
 
-            if (this.execute(new ProcessBuilder("git", "reset", "--hard", "upstream").directory(this.getSourceDirectory())) != 0) {
+            if (this.execute(new ProcessBuilder("git", "reset", "--hard", base.name()).directory(this.getSourceDirectory())) != 0) {
                 throw new MojoFailureException("Git returned with unexpected status code");
             }
         } catch (InterruptedException ex) {
@@ -83,84 +193,87 @@ public class ApplyPatchesMojo extends AbstractGitCommandMojo {
         }
 
         // apply patches one-by-one
+        boolean complete = true;
+
         try {
-            try {
-                Files.walk(this.getPatchDirectory().toPath())
-                        .filter((p) -> p.getFileName().toString().endsWith(".patch"))
-                        .sorted()
-                        .forEachOrdered((p) -> {
-                            this.getLog().info("Applying " + p.toString());
-                            List<String> command = new ArrayList<>(Arrays.asList("git", "am", "--ignore-whitespace", "--3way"));
-
-                            if (this.getSettings().isInteractiveMode()) {
-                                command.add("--reject");
-                            }
-
-                            command.add(this.getSourceDirectory().toPath().relativize(p.toAbsolutePath()).toString());
-
-                            try {
-                                if (this.execute(new ProcessBuilder(command).directory(this.getSourceDirectory())) != 0) {
-                                    this.getLog().error("Could not apply patch from file " + p.toString());
-
-                                    if (!this.getSettings().isInteractiveMode()) {
-                                        this.getLog().error("Cannot recover from failure - Switch to interactive mode to resolve this issue");
-                                        throw new MojoFailureException("Failed to apply patch " + p.toString());
-                                    }
-
-                                    this.getLog().info("Merge mode activated");
-                                    this.getLog().info("Perform a manual merge for the modified files and confirm by entering \"Y\"");
-
-                                    while (true) {
-                                        this.getLog().info("Continue process?");
-                                        this.getLog().info("Confirm Command: (Y)es / (N)o / (S)kip");
-
-                                        int input = System.in.read();
-
-                                        if (input == 'N' || input == 'n') {
-                                            this.getLog().error("Did not solve merge error - Cannot recover from build failure");
-                                            throw new MojoFailureException("Failed to apply patch " + p.toString());
-                                        }
-
-                                        if (input == 'S' || input == 's') {
-                                            if (this.execute(new ProcessBuilder("git", "am", "--skip").directory(this.getSourceDirectory())) != 0) {
-                                                throw new MojoFailureException("Git returned an unexpected error");
-                                            }
-
-                                            break;
-                                        }
-
-                                        if (input == 'Y' || input == 'y') {
-                                            if (this.execute(new ProcessBuilder("git", "am", "--continue").directory(this.getSourceDirectory())) != 0) {
-                                                throw new MojoFailureException("Git returned an unexpected error");
-                                            }
-
-                                            break;
-                                        }
-                                    }
-                                }
-                            } catch (Exception ex) {
-                                throw new WrappedException(ex);
-                            }
-                        });
-            } catch (WrappedException ex) {
-                throw ex.getCause();
+            for (int i = entries.size(); i < patches.size(); ++i) {
+                complete &= this.applyPatch(patches.get(i));
+
+                if (complete) {
+                    ObjectId head = repository.resolve(Constants.HEAD);
+
+                    if (head == null) {
+                        throw new MojoFailureException("Cannot resolve HEAD of module repository");
+                    }
+
+                    entries.add(new PatchState.Entry(hashes.get(i).toString(), head));
+                }
             }
-        } catch (IOException ex) {
-            throw new MojoFailureException("Cannot access one or more patch files: " + ex.getMessage(), ex);
-        } catch (MojoFailureException ex) {
-            throw ex;
-        } catch (Throwable ex) {
-            throw new MojoFailureException("Caught unexpected exception: " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            throw new MojoFailureException("Interrupted while awaiting git return status: " + ex.getMessage(), ex);
         }
     }
 
     /**
-     * Provides a wrapper exception which acts as a transport through the boundaries of lambda
-     * methods.
+     * Applies a single patch and prompts the user to resolve conflicts when interactive mode is
+     * enabled.
+     *
+     * @return true if the patch has been applied, false if it has been skipped.
      */
-    private static class WrappedException extends RuntimeException {
-        public WrappedException(Throwable throwable) {
-            super(throwable);
+    private boolean applyPatch(@Nonnull Path p) throws IOException, InterruptedException, MojoFailureException {
+        this.getLog().info("Applying " + p.toString());
+        List<String> command = new ArrayList<>(Arrays.asList("git", "am", "--ignore-whitespace"));
+
+        if (this.getGitInstallation().map(GitInstallation::isThreeWayApplySupported).orElse(false)) {
+            command.add("--3way");
+        }
+
+        if (this.getSettings().isInteractiveMode()) {
+            command.add("--reject");
+        }
+
+        command.add(this.getSourceDirectory().toPath().relativize(p.toAbsolutePath()).toString());
+
+        if (this.execute(new ProcessBuilder(command).directory(this.getSourceDirectory())) == 0) {
+            return true;
+        }
+
+        this.getLog().error("Could not apply patch from file " + p.toString());
+
+        if (!this.getSettings().isInteractiveMode()) {
+            this.getLog().error("Cannot recover from failure - Switch to interactive mode to resolve this issue");
+            throw new MojoFailureException("Failed to apply patch " + p.toString());
+        }
+
+        this.getLog().info("Merge mode activated");
+        this.getLog().info("Perform a manual merge for the modified files and confirm by entering \"Y\"");
+
+        while (true) {
+            this.getLog().info("Continue process?");
+            this.getLog().info("Confirm Command: (Y)es / (N)o / (S)kip");
+
+            int input = System.in.read();
+
+            if (input == 'N' || input == 'n') {
+                this.getLog().error("Did not solve merge error - Cannot recover from build failure");
+                throw new MojoFailureException("Failed to apply patch " + p.toString());
+            }
+
+            if (input == 'S' || input == 's') {
+                if (this.execute(new ProcessBuilder("git", "am", "--skip").directory(this.getSourceDirectory())) != 0) {
+                    throw new MojoFailureException("Git returned an unexpected error");
+                }
+
+                return false;
+            }
+
+            if (input == 'Y' || input == 'y') {
+                if (this.execute(new ProcessBuilder("git", "am", "--continue").directory(this.getSourceDirectory())) != 0) {
+                    throw new MojoFailureException("Git returned an unexpected error");
+                }
+
+                return true;
+            }
         }
     }
 }
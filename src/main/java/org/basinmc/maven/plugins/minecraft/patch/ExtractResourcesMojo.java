@@ -16,6 +16,8 @@
  */
 package org.basinmc.maven.plugins.minecraft.patch;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 
 import org.apache.maven.artifact.Artifact;
@@ -27,22 +29,34 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.project.MavenProjectHelper;
 import org.basinmc.maven.plugins.minecraft.AbstractMappingMojo;
+import org.basinmc.maven.plugins.minecraft.store.ContentStore;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
 /**
  * Provides a Mojo capable of extracting the module resources and adding them to the build.
  *
@@ -55,6 +69,8 @@ import java.util.zip.ZipFile;
         defaultPhase = LifecyclePhase.GENERATE_RESOURCES
 )
 public class ExtractResourcesMojo extends AbstractMappingMojo {
+    private static final String RESOURCE_MANIFEST_PREFIX = "resources-";
+    private static final String RESOURCE_MANIFEST_SUFFIX = ".manifest";
 
     // <editor-fold desc="Maven Components">
     @Component
@@ -66,20 +82,30 @@ public class ExtractResourcesMojo extends AbstractMappingMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        this.verifyProperties("module", "gameVersion", "mappingVersion", "resourceDirectory");
+        this.verifyProperties("module", "gameVersion", "mappingVersion", "resourceDirectory", "resourceMode", "accessTransformationMode", "decompiler");
+
+        if (this.isArchiveResourceMode()) {
+            this.getLog().info("Skipping resource extraction - Resources are packaged directly from the source artifact");
+            return;
+        }
 
         this.getLog().info("Extracting Resources");
         final Path sourceArtifact;
 
         try {
             {
-                Artifact a = this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), "source");
+                Artifact a = this.getSourceArtifact();
                 sourceArtifact = this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
             }
 
             final List<String> resources = new ArrayList<>();
+            Path manifestPath = this.getManifestPath();
+            Map<String, Long> previousManifest = readManifest(manifestPath);
+            Map<String, Long> manifest = new HashMap<>();
+            final int extracted;
 
             try (ZipFile file = new ZipFile(sourceArtifact.toFile())) {
+                List<ZipEntry> pending = new ArrayList<>();
                 Enumeration<? extends ZipEntry> enumeration = file.entries();
 
                 while (enumeration.hasMoreElements()) {
@@ -97,28 +123,30 @@ public class ExtractResourcesMojo extends AbstractMappingMojo {
 
                     Path outputPath = this.getResourceDirectory().toPath().resolve(name);
                     resources.add(name);
+                    manifest.put(name, entry.getCrc());
 
-                    if (!Files.isDirectory(outputPath.getParent())) {
-                        Files.createDirectories(outputPath.getParent());
+                    // resources are only extracted when their checksum differs from the previously
+                    // extracted version or the local file has been removed or altered in size
+                    if (entry.getCrc() == -1 || !Long.valueOf(entry.getCrc()).equals(previousManifest.get(name)) || !Files.isRegularFile(outputPath) || Files.size(outputPath) != entry.getSize()) {
+                        pending.add(entry);
                     }
+                }
 
-                    if (Files.exists(outputPath)) {
-                        if (!entry.getLastModifiedTime().toInstant().isAfter(Files.getLastModifiedTime(outputPath).toInstant())) {
-                            this.getLog().info("Skipping resource " + name + " - Local file is newer or of equal age");
-                            continue;
-                        }
-                    }
+                this.extract(file, pending);
+                extracted = pending.size();
+            }
 
-                    try (InputStream inputStream = file.getInputStream(entry)) {
-                        try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
-                            try (FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
-                                ByteStreams.copy(channel, outputChannel);
-                            }
-                        }
-                    }
+            int removed = 0;
+
+            for (String name : previousManifest.keySet()) {
+                if (!manifest.containsKey(name) && Files.deleteIfExists(this.getResourceDirectory().toPath().resolve(name))) {
+                    ++removed;
                 }
             }
 
+            writeManifest(manifestPath, manifest);
+            this.getLog().info("Extracted " + extracted + " of " + resources.size() + " resources (" + removed + " removed)");
+
             this.projectHelper.addResource(this.getProject(), this.getResourceDirectory().toString(), resources, Collections.emptyList());
         } catch (ArtifactResolutionException ex) {
             throw new MojoFailureException("Cannot resolve artifact: " + ex.getMessage(), ex);
@@ -126,4 +154,135 @@ public class ExtractResourcesMojo extends AbstractMappingMojo {
             throw new MojoFailureException("Cannot not read or write source artifact or target file: " + ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Retrieves the path to the manifest of the resources extracted by this execution.
+     *
+     * Manifests are keyed by module and resource directory since multiple executions (e.g. for
+     * the server and client module) may share the state directory and would otherwise remove each
+     * other's resources.
+     */
+    @Nonnull
+    private Path getManifestPath() {
+        String directoryHash = Hashing.sha1().hashString(this.getResourceDirectory().getAbsolutePath(), StandardCharsets.UTF_8).toString().substring(0, 8);
+        return this.getStateDirectory().resolve(RESOURCE_MANIFEST_PREFIX + this.getModule() + "-" + directoryHash + RESOURCE_MANIFEST_SUFFIX);
+    }
+
+    /**
+     * Extracts the supplied entries from an archive into the resource directory using a pool of
+     * worker threads.
+     */
+    private void extract(@Nonnull ZipFile file, @Nonnull List<ZipEntry> entries) throws IOException, MojoFailureException {
+        ContentStore store = (this.getContentStore() == null ? null : new ContentStore(this.getContentStore().toPath()));
+        ExecutorService executor = Executors.newFixedThreadPool(this.getThreads());
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(entries.size());
+
+            for (ZipEntry entry : entries) {
+                futures.add(executor.submit(() -> {
+                    this.extract(file, entry, store);
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new MojoFailureException("Caught unexpected exception: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            throw new MojoFailureException("Interrupted while awaiting resource extraction: " + ex.getMessage(), ex);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Extracts a single entry from an archive into the resource directory (or materializes it from
+     * the content store if one has been configured).
+     */
+    private void extract(@Nonnull ZipFile file, @Nonnull ZipEntry entry, @Nullable ContentStore store) throws IOException {
+        Path outputPath = this.getResourceDirectory().toPath().resolve(entry.getName());
+
+        if (!Files.isDirectory(outputPath.getParent())) {
+            Files.createDirectories(outputPath.getParent());
+        }
+
+        if (store != null) {
+            final HashCode hash;
+
+            // entries are hashed before being written to the store in order to reduce the
+            // materialization of previously stored resources to a hard link
+            try (InputStream inputStream = file.getInputStream(entry)) {
+                hash = ContentStore.hash(inputStream);
+            }
+
+            if (!store.contains(hash)) {
+                try (InputStream inputStream = file.getInputStream(entry)) {
+                    store.store(inputStream);
+                }
+            }
+
+            store.materialize(hash, outputPath);
+            return;
+        }
+
+        // previously extracted files may be links into a content store and thus need to be
+        // replaced instead of being overwritten in place
+        Files.deleteIfExists(outputPath);
+
+        try (InputStream inputStream = file.getInputStream(entry)) {
+            try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+                try (FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteStreams.copy(channel, outputChannel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a manifest of previously extracted resources and their checksums.
+     */
+    @Nonnull
+    private static Map<String, Long> readManifest(@Nonnull Path path) throws IOException {
+        Map<String, Long> manifest = new HashMap<>();
+
+        if (!Files.isRegularFile(path)) {
+            return manifest;
+        }
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+
+            if (separator == -1) {
+                continue;
+            }
+
+            try {
+                manifest.put(line.substring(separator + 1), Long.parseLong(line.substring(0, separator), 16));
+            } catch (NumberFormatException ignore) {
+                // malformed entries are simply extracted again
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Persists a manifest of extracted resources and their checksums.
+     */
+    private static void writeManifest(@Nonnull Path path, @Nonnull Map<String, Long> manifest) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        Files.write(path, manifest.entrySet().stream()
+                .map((e) -> Long.toHexString(e.getValue()) + " " + e.getKey())
+                .collect(Collectors.toList()), StandardCharsets.UTF_8);
+    }
 }
@@ -20,7 +20,6 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
@@ -30,6 +29,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import javax.annotation.Nonnull;
+
 /**
  * Provides a Mojo capable of re-generating patches based on the unmodified module code base.
  *
@@ -48,6 +49,16 @@ public class GeneratePatchesMojo extends AbstractGitCommandMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        this.verifyProperties("patchGenerator");
+
+        if ("jgit".equals(this.getPatchGenerator())) {
+            // the in-process generator does not rely on a local git installation and thus skips
+            // the respective verification
+            this.verifyProperties("sourceDirectory", "patchDirectory");
+            this.generatePatches();
+            return;
+        }
+
         super.execute();
 
         this.getLog().info("Purging previous patch files");
@@ -72,20 +83,8 @@ public class GeneratePatchesMojo extends AbstractGitCommandMojo {
             throw new MojoFailureException("Caught unexpected exception: " + ex.getMessage(), ex);
         }
 
-        try {
-            Repository repository = new FileRepositoryBuilder()
-                    .setWorkTree(this.getSourceDirectory())
-                    .setMustExist(true)
-                    .build();
-
-            Git git = new Git(repository);
-
-            if (!git.status().call().isClean()) {
-                this.getLog().warn("One or more uncommited changes present within source directory\n");
-                this.getLog().warn("Only commited changes will be considered in patch generation");
-            }
-        } catch (GitAPIException ex) {
-            throw new MojoFailureException("Failed to invoke git: " + ex.getMessage(), ex);
+        try (Repository repository = this.openRepository()) {
+            this.verifyCleanState(repository);
         } catch (IOException ex) {
             throw new MojoFailureException("Could not access module repository: " + ex.getMessage(), ex);
         }
@@ -104,6 +103,50 @@ public class GeneratePatchesMojo extends AbstractGitCommandMojo {
         }
     }
 
+    /**
+     * Generates patches in-process and only touches patch files whose contents actually changed.
+     */
+    private void generatePatches() throws MojoFailureException {
+        try (Repository repository = this.openRepository()) {
+            this.verifyCleanState(repository);
+
+            PatchGenerator.Result result = new PatchGenerator(repository, this.getPatchDirectory().toPath(), this.getThreads()).generate("upstream");
+            this.getLog().info("Generated " + result.getTotal() + " patches (" + result.getWritten() + " updated, " + result.getRemoved() + " removed)");
+        } catch (IOException ex) {
+            throw new MojoFailureException("Failed to generate patches: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Opens the module repository within the source directory.
+     */
+    @Nonnull
+    private Repository openRepository() throws IOException {
+        return new FileRepositoryBuilder()
+                .setWorkTree(this.getSourceDirectory())
+                .setMustExist(true)
+                .build();
+    }
+
+    /**
+     * Warns the user about uncommitted changes which will not be considered when generating
+     * patches.
+     */
+    private void verifyCleanState(@Nonnull Repository repository) throws MojoFailureException {
+        try {
+            StatusCache statusCache = new StatusCache(repository, this.getStateDirectory().resolve(StatusCache.FILE_NAME));
+
+            if (!statusCache.isClean()) {
+                this.getLog().warn("One or more uncommited changes present within source directory\n");
+                this.getLog().warn("Only commited changes will be considered in patch generation");
+            }
+        } catch (GitAPIException ex) {
+            throw new MojoFailureException("Failed to invoke git: " + ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new MojoFailureException("Could not access module repository: " + ex.getMessage(), ex);
+        }
+    }
+
     private static class WrappedException extends RuntimeException {
         public WrappedException(Throwable throwable) {
             super(throwable);
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Represents a local git installation along with its version and capabilities.
+ *
+ * Detected installations are cached for the lifetime of the plugin class loader (e.g. an entire
+ * reactor build) in order to avoid forking git for every Mojo execution.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class GitInstallation {
+    private static final String VERSION_PREFIX = "git version ";
+    private static final Map<String, Optional<GitInstallation>> CACHE = new ConcurrentHashMap<>();
+
+    private final Path executable;
+    private final String version;
+    private final boolean threeWayApplySupported;
+
+    private GitInstallation(@Nonnull Path executable, @Nonnull String version, boolean threeWayApplySupported) {
+        this.executable = executable;
+        this.version = version;
+        this.threeWayApplySupported = threeWayApplySupported;
+    }
+
+    /**
+     * Retrieves the git installation within the executable search path (if any).
+     *
+     * The result of the detection is cached based on the current search path. Failures to query
+     * an installation which is present within the search path (e.g. due to a timeout) may be
+     * temporary and are thus not cached.
+     */
+    @Nonnull
+    public static Optional<GitInstallation> detect(@Nonnegative long timeout) {
+        String searchPath = System.getenv("PATH");
+        String key = (searchPath == null ? "" : searchPath);
+        Optional<GitInstallation> installation = CACHE.get(key);
+
+        if (installation != null) {
+            return installation;
+        }
+
+        Path executable = locate(key).orElse(null);
+
+        if (executable != null) {
+            installation = detect(timeout, executable);
+
+            if (!installation.isPresent()) {
+                return installation;
+            }
+        } else {
+            installation = Optional.empty();
+        }
+
+        Optional<GitInstallation> previous = CACHE.putIfAbsent(key, installation);
+        return (previous != null ? previous : installation);
+    }
+
+    /**
+     * Queries the version and capabilities of a git executable.
+     */
+    @Nonnull
+    private static Optional<GitInstallation> detect(@Nonnegative long timeout, @Nonnull Path executable) {
+        try {
+            StringBuilder version = new StringBuilder();
+
+            ProcessRunner versionRunner = new ProcessRunner((l) -> {
+                if (l.startsWith(VERSION_PREFIX)) {
+                    version.append(l.substring(VERSION_PREFIX.length()).trim());
+                }
+            }, (l) -> {
+            }, timeout);
+
+            if (versionRunner.run(new ProcessBuilder(executable.toString(), "--version")) != 0 || version.length() == 0) {
+                return Optional.empty();
+            }
+
+            // git prints its usage (and exits with a non-zero status) when passed -h which permits
+            // us to detect supported flags without altering any repository
+            StringBuffer usage = new StringBuffer();
+            new ProcessRunner((l) -> usage.append(l).append('\n'), (l) -> usage.append(l).append('\n'), timeout)
+                    .run(new ProcessBuilder(executable.toString(), "am", "-h"));
+
+            return Optional.of(new GitInstallation(executable, version.toString(), usage.indexOf("--3way") != -1));
+        } catch (IOException ex) {
+            return Optional.empty();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Locates the git executable within a search path.
+     */
+    @Nonnull
+    private static Optional<Path> locate(@Nonnull String searchPath) {
+        boolean windows = File.pathSeparatorChar == ';';
+
+        for (String directory : searchPath.split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+
+            Path executable = Paths.get(directory, (windows ? "git.exe" : "git"));
+
+            if (Files.isRegularFile(executable) && Files.isExecutable(executable)) {
+                return Optional.of(executable.toAbsolutePath());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @Nonnull
+    public Path getExecutable() {
+        return this.executable;
+    }
+
+    @Nonnull
+    public String getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Checks whether git am supports falling back to a three-way merge (--3way).
+     */
+    public boolean isThreeWayApplySupported() {
+        return this.threeWayApplySupported;
+    }
+}
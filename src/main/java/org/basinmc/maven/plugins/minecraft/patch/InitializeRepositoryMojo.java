@@ -28,33 +28,46 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.basinmc.maven.plugins.minecraft.AbstractMappingMojo;
 import org.basinmc.maven.plugins.minecraft.access.AccessTransformationMap;
+import org.basinmc.maven.plugins.minecraft.access.ClassHierarchyIndex;
+import org.basinmc.maven.plugins.minecraft.access.SourceAccessTransformer;
+import org.basinmc.maven.plugins.minecraft.access.VisibilityEditor;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.RebaseCommand;
+import org.eclipse.jgit.api.RebaseResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.jboss.forge.roaster.Roaster;
-import org.jboss.forge.roaster.model.JavaType;
-import org.jboss.forge.roaster.model.source.FieldHolderSource;
-import org.jboss.forge.roaster.model.source.FieldSource;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
-import org.jboss.forge.roaster.model.source.MethodHolderSource;
-import org.jboss.forge.roaster.model.source.MethodSource;
-import org.jboss.forge.roaster.model.source.VisibilityScopedSource;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
-import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Enumeration;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * Provides a Mojo which initializes the local git repository with its respective contents.
@@ -70,39 +83,16 @@ import javax.annotation.Nonnull;
 public class InitializeRepositoryMojo extends AbstractMappingMojo {
     private static final String ROOT_COMMIT_AUTHOR_NAME = "Basin";
     private static final String ROOT_COMMIT_AUTHOR_EMAIL = "contact@basinmc.org";
-
-    /**
-     * Applies access transformations to a parsed type and all of its nested members.
-     *
-     * TODO: Add support for inheritance to reduce the size of AT configs.
-     */
-    @SuppressWarnings("unchecked")
-    private void applyAccessTransformation(@Nonnull AccessTransformationMap transformationMap, @Nonnull JavaType classSource) {
-        this.getLog().info("Applying access transformations to " + classSource.getQualifiedName());
-
-        transformationMap.getTypeMappings(classSource.getQualifiedName()).ifPresent((t) -> {
-            if (classSource instanceof VisibilityScopedSource) {
-                t.getVisibility().ifPresent(((VisibilityScopedSource) classSource)::setVisibility);
-            }
-
-            if (classSource instanceof FieldHolderSource) {
-                ((List<FieldSource>) ((FieldHolderSource) classSource).getFields()).forEach((f) -> t.getFieldVisibility(f.getName()).ifPresent(f::setVisibility));
-            }
-
-            if (classSource instanceof MethodHolderSource) {
-                ((List<MethodSource>) ((MethodHolderSource) classSource).getMethods()).forEach((m) -> t.getMethodVisibility(m.getName()).ifPresent(m::setVisibility));
-            }
-
-            ((List<JavaType>) classSource.getNestedClasses()).forEach((c) -> this.applyAccessTransformation(transformationMap, c));
-        });
-    }
+    private static final int TRANSFORMATION_QUEUE_FACTOR = 4;
+    private static final String ACCESS_TRANSFORMATION_SNAPSHOT = "basin/access-transformation.json";
+    private static final String EMPTY_ACCESS_TRANSFORMATION = "{}";
 
     /**
      * {@inheritDoc}
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        this.verifyProperties("module", "gameVersion", "mappingVersion", "sourceDirectory");
+        this.verifyProperties("module", "gameVersion", "mappingVersion", "sourceDirectory", "accessTransformationMode", "accessTransformationFormatting", "decompiler");
 
         this.getLog().info("Initializing repository at " + this.getSourceDirectory().getAbsolutePath());
 
@@ -110,7 +100,7 @@ public class InitializeRepositoryMojo extends AbstractMappingMojo {
             if (Files.notExists(this.getSourceDirectory().toPath()) || Files.notExists(this.getSourceDirectory().toPath().resolve(".git"))) {
                 this.initializeRepository();
             } else {
-                this.getLog().info("Skipping repository initialization - Cached");
+                this.updateAccessTransformations();
             }
 
             this.getProject().addCompileSourceRoot(this.getSourceDirectory().toString());
@@ -119,63 +109,47 @@ public class InitializeRepositoryMojo extends AbstractMappingMojo {
         }
     }
 
+    /**
+     * Retrieves the contents of the current access transformation configuration (an empty
+     * configuration is substituted when none is configured).
+     */
+    @Nonnull
+    private byte[] getAccessTransformationConfiguration() throws IOException {
+        if (this.getAccessTransformation() == null) {
+            return EMPTY_ACCESS_TRANSFORMATION.getBytes(StandardCharsets.UTF_8);
+        }
+
+        return Files.readAllBytes(this.getAccessTransformation().toPath());
+    }
+
+    /**
+     * Locates the source artifact within the local repository.
+     */
+    @Nonnull
+    private Path findSourceArtifact() throws ArtifactResolutionException, MojoFailureException {
+        Artifact a = this.getSourceArtifact();
+        return this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
+    }
+
     /**
      * Initializes the local repository with its default state.
      */
     private void initializeRepository() throws ArtifactResolutionException, MojoFailureException {
-        final Path sourceArtifact;
-
-        {
-            Artifact a = this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), "source");
-            sourceArtifact = this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
-        }
+        final Path sourceArtifact = this.findSourceArtifact();
 
         try {
             Files.createDirectories(this.getSourceDirectory().toPath());
             Git git = Git.init().setDirectory(this.getSourceDirectory()).call();
 
             AccessTransformationMap transformationMap = null;
-            Formatter formatter = null;
 
-            if (this.getAccessTransformation() != null) {
-                transformationMap = AccessTransformationMap.read(this.getAccessTransformation().toPath());
-                formatter = new Formatter();
+            // when operating in bytecode mode, access transformations have already been applied
+            // to the mapped artifact and are thus reflected by the decompiled sources
+            if (this.getAccessTransformation() != null && !this.isBytecodeAccessTransformation()) {
+                transformationMap = this.readAccessTransformationMap(this.getAccessTransformation().toPath());
             }
 
-            try (ZipFile file = new ZipFile(sourceArtifact.toFile())) {
-                Enumeration<? extends ZipEntry> enumeration = file.entries();
-
-                while (enumeration.hasMoreElements()) {
-                    ZipEntry entry = enumeration.nextElement();
-                    String name = entry.getName();
-
-                    if (!name.endsWith(".java")) {
-                        continue;
-                    }
-
-                    Path outputPath = this.getSourceDirectory().toPath().resolve(name);
-
-                    if (!Files.isDirectory(outputPath.getParent())) {
-                        Files.createDirectories(outputPath.getParent());
-                    }
-
-                    try (InputStream inputStream = file.getInputStream(entry)) {
-                        try (FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
-                            if (transformationMap != null && transformationMap.getTypeMappings(name).isPresent()) {
-                                JavaClassSource classSource = Roaster.parse(JavaClassSource.class, inputStream);
-                                this.applyAccessTransformation(transformationMap, classSource);
-                                outputChannel.write(ByteBuffer.wrap(formatter.formatSource(classSource.toString()).getBytes(StandardCharsets.UTF_8)));
-                            } else {
-                                try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
-                                    ByteStreams.copy(channel, outputChannel);
-                                }
-                            }
-                        }
-                    }
-
-                    git.add().addFilepattern(name).call();
-                }
-            }
+            this.writeSources(git, sourceArtifact, transformationMap, (name) -> true);
 
             git.commit()
                     .setAuthor(ROOT_COMMIT_AUTHOR_NAME, ROOT_COMMIT_AUTHOR_EMAIL)
@@ -186,12 +160,260 @@ public class InitializeRepositoryMojo extends AbstractMappingMojo {
             git.branchCreate()
                     .setName("upstream")
                     .call();
-        } catch (FormatterException ex) {
-            throw new MojoFailureException("Failed to format one or more source files: " + ex.getMessage(), ex);
+
+            this.storeAccessTransformationSnapshot(git.getRepository(), this.getAccessTransformationConfiguration());
+        } catch (GitAPIException ex) {
+            throw new MojoFailureException("Failed to execute Git command: " + ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new MojoFailureException("Failed to access source artifact or write target file: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Reads an access transformation map and resolves its inherited rules (if any).
+     */
+    @Nonnull
+    private AccessTransformationMap readAccessTransformationMap(@Nonnull Path path) throws ArtifactResolutionException, IOException, MojoFailureException {
+        AccessTransformationMap transformationMap = AccessTransformationMap.read(path);
+
+        if (transformationMap.hasInheritedRules()) {
+            this.getLog().info("Resolving inherited access transformations");
+
+            Artifact a = this.getMappedArtifact();
+            Path mappedArtifact = this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
+            transformationMap = transformationMap.resolve(ClassHierarchyIndex.read(mappedArtifact));
+        }
+
+        return transformationMap;
+    }
+
+    /**
+     * Stores a copy of the access transformation configuration which has been applied to the
+     * upstream branch of a repository.
+     */
+    private void storeAccessTransformationSnapshot(@Nonnull Repository repository, @Nonnull byte[] configuration) throws IOException {
+        Path snapshotPath = repository.getDirectory().toPath().resolve(ACCESS_TRANSFORMATION_SNAPSHOT);
+        Files.createDirectories(snapshotPath.getParent());
+        Files.write(snapshotPath, configuration);
+    }
+
+    /**
+     * Re-applies access transformations to all types which are affected by changes to the access
+     * transformation configuration since the repository has last been updated and rebases the
+     * current branch onto the altered upstream branch.
+     */
+    private void updateAccessTransformations() throws ArtifactResolutionException, MojoFailureException {
+        try (Repository repository = new FileRepositoryBuilder()
+                .setWorkTree(this.getSourceDirectory())
+                .setMustExist(true)
+                .build(); Git git = new Git(repository)) {
+            Path snapshotPath = repository.getDirectory().toPath().resolve(ACCESS_TRANSFORMATION_SNAPSHOT);
+            byte[] configuration = this.getAccessTransformationConfiguration();
+
+            // repositories which have been initialized without a snapshot are assumed to reflect
+            // the current configuration (which also covers builds without access transformations)
+            // and only have their snapshot written for subsequent builds
+            if (Files.notExists(snapshotPath)) {
+                this.getLog().info("Skipping repository initialization - Cached");
+                this.storeAccessTransformationSnapshot(repository, configuration);
+                return;
+            }
+
+            // unchanged configurations (including builds which remain without access
+            // transformations) require no further work
+            if (Arrays.equals(Files.readAllBytes(snapshotPath), configuration)) {
+                this.getLog().info("Skipping repository initialization - Cached");
+                return;
+            }
+
+            this.getLog().info("Access transformation configuration has changed - Updating repository");
+
+            if (!git.status().call().isClean()) {
+                this.getLog().error("The repository at " + this.getSourceDirectory().toString() + " is not in a clean state");
+                this.getLog().error("Please commit or discard all pending changes before altering the access transformation configuration");
+
+                throw new MojoFailureException("Repository is in a dirty state");
+            }
+
+            // the current branch is rebased onto the updated upstream branch and thus a detached
+            // HEAD cannot be restored once the update has been committed
+            String branch = repository.getFullBranch();
+
+            if (branch == null || !branch.startsWith(Constants.R_HEADS)) {
+                this.getLog().error("The repository at " + this.getSourceDirectory().toString() + " is not on a branch (HEAD is detached at " + branch + ")");
+                this.getLog().error("Please check out a branch before altering the access transformation configuration");
+
+                throw new MojoFailureException("Repository HEAD is detached");
+            }
+
+            AccessTransformationMap previousMap = this.readAccessTransformationMap(snapshotPath);
+            AccessTransformationMap currentMap = (this.getAccessTransformation() == null ? AccessTransformationMap.empty() : this.readAccessTransformationMap(this.getAccessTransformation().toPath()));
+
+            // nested types are part of their top level type's source file and thus every prefix of
+            // a changed type is considered a potential source file
+            Set<String> affectedTypes = new HashSet<>();
+
+            currentMap.getChangedTypes(previousMap).forEach((t) -> {
+                int separator = -1;
+
+                while ((separator = t.indexOf('.', separator + 1)) != -1) {
+                    affectedTypes.add(t.substring(0, separator));
+                }
+
+                affectedTypes.add(t);
+            });
+
+            this.getLog().info("Re-applying access transformations to " + affectedTypes.size() + " potentially affected types");
+
+            git.checkout()
+                    .setName("upstream")
+                    .call();
+
+            this.writeSources(git, this.findSourceArtifact(), (this.isBytecodeAccessTransformation() ? null : currentMap), (name) -> affectedTypes.contains(name.substring(0, name.length() - 5).replace('/', '.')));
+
+            if (!git.diff().setCached(true).setShowNameAndStatusOnly(true).call().isEmpty()) {
+                git.commit()
+                        .setAuthor(ROOT_COMMIT_AUTHOR_NAME, ROOT_COMMIT_AUTHOR_EMAIL)
+                        .setCommitter(ROOT_COMMIT_AUTHOR_NAME, ROOT_COMMIT_AUTHOR_EMAIL)
+                        .setMessage("Updated access transformations.")
+                        .call();
+            }
+
+            if (!(Constants.R_HEADS + "upstream").equals(branch)) {
+                git.checkout()
+                        .setName(branch)
+                        .call();
+
+                RebaseResult result = git.rebase()
+                        .setUpstream("upstream")
+                        .call();
+
+                if (!result.getStatus().isSuccessful()) {
+                    git.rebase()
+                            .setOperation(RebaseCommand.Operation.ABORT)
+                            .call();
+
+                    this.getLog().warn("Could not rebase " + branch + " onto the updated upstream branch (" + result.getStatus() + ") - Patches will need to be re-applied");
+                }
+            }
+
+            this.storeAccessTransformationSnapshot(repository, configuration);
         } catch (GitAPIException ex) {
             throw new MojoFailureException("Failed to execute Git command: " + ex.getMessage(), ex);
         } catch (IOException ex) {
             throw new MojoFailureException("Failed to access source artifact or write target file: " + ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Writes all sources which match the supplied filter from the source artifact into the
+     * repository and adds them to its index.
+     *
+     * When a transformation map is passed, all sources with matching type mappings are parsed and
+     * transformed by a pool of worker threads. Transformed sources are either reformatted as a
+     * whole or edited in place depending on the configured formatting mode.
+     */
+    private void writeSources(@Nonnull Git git, @Nonnull Path sourceArtifact, @Nullable AccessTransformationMap transformationMap, @Nonnull Predicate<String> filter) throws GitAPIException, IOException, MojoFailureException {
+        Formatter formatter = null;
+        SourceAccessTransformer transformer = null;
+        ExecutorService executor = null;
+
+        if (transformationMap != null) {
+            transformer = new SourceAccessTransformer(transformationMap);
+
+            if (!this.isMinimalAccessTransformationFormatting()) {
+                formatter = new Formatter();
+            }
+
+            executor = Executors.newFixedThreadPool(this.getThreads());
+        }
+
+        try (ZipFile file = new ZipFile(sourceArtifact.toFile())) {
+            // transformed sources are passed back through this queue in their original order
+            // while the queue size is bounded in order to keep the memory footprint in check
+            Deque<Map.Entry<String, Future<byte[]>>> queue = new ArrayDeque<>();
+            Enumeration<? extends ZipEntry> enumeration = file.entries();
+
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                String name = entry.getName();
+
+                if (!name.endsWith(".java") || !filter.test(name)) {
+                    continue;
+                }
+
+                final byte[] contents;
+
+                try (InputStream inputStream = file.getInputStream(entry)) {
+                    contents = ByteStreams.toByteArray(inputStream);
+                }
+
+                if (transformationMap != null && transformationMap.getTypeMappings(name).isPresent()) {
+                    final Formatter f = formatter;
+                    final SourceAccessTransformer t = transformer;
+
+                    queue.addLast(new AbstractMap.SimpleImmutableEntry<>(name, executor.submit(() -> {
+                        String source = new String(contents, StandardCharsets.UTF_8);
+                        JavaClassSource classSource = Roaster.parse(JavaClassSource.class, source);
+                        this.getLog().info("Applying access transformations to " + classSource.getQualifiedName());
+
+                        VisibilityEditor editor = new VisibilityEditor(source);
+                        t.apply(classSource, editor::setVisibility);
+                        String transformed = editor.apply();
+
+                        // in minimal mode only the affected modifier tokens are replaced while the
+                        // remaining file is passed through as-is
+                        if (f == null) {
+                            return transformed.getBytes(StandardCharsets.UTF_8);
+                        }
+
+                        return f.formatSource(transformed).getBytes(StandardCharsets.UTF_8);
+                    })));
+                } else {
+                    queue.addLast(new AbstractMap.SimpleImmutableEntry<>(name, CompletableFuture.completedFuture(contents)));
+                }
+
+                while (!queue.isEmpty() && (queue.size() > this.getThreads() * TRANSFORMATION_QUEUE_FACTOR || queue.peekFirst().getValue().isDone())) {
+                    Map.Entry<String, Future<byte[]>> pending = queue.removeFirst();
+                    this.writeSource(git, pending.getKey(), pending.getValue().get());
+                }
+            }
+
+            while (!queue.isEmpty()) {
+                Map.Entry<String, Future<byte[]>> pending = queue.removeFirst();
+                this.writeSource(git, pending.getKey(), pending.getValue().get());
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof FormatterException) {
+                throw new MojoFailureException("Failed to format one or more source files: " + cause.getMessage(), cause);
+            }
+
+            throw new MojoFailureException("Failed to apply access transformations: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            throw new MojoFailureException("Interrupted while awaiting access transformation: " + ex.getMessage(), ex);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Writes a source file into the repository and adds it to the index.
+     */
+    private void writeSource(@Nonnull Git git, @Nonnull String name, @Nonnull byte[] contents) throws GitAPIException, IOException {
+        Path outputPath = this.getSourceDirectory().toPath().resolve(name);
+
+        if (!Files.isDirectory(outputPath.getParent())) {
+            Files.createDirectories(outputPath.getParent());
+        }
+
+        try (FileChannel outputChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            outputChannel.write(ByteBuffer.wrap(contents));
+        }
+
+        git.add().addFilepattern(name).call();
+    }
 }
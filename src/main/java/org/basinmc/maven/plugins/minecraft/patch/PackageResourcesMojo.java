@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.resolver.ArtifactResolutionException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.basinmc.maven.plugins.minecraft.AbstractMappingMojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Provides a Mojo which copies the module resources from the source artifact into the packaged
+ * project artifact without extracting them.
+ *
+ * Entries are transferred in their compressed form and thus are neither inflated nor written to
+ * disk individually. Resources which are already present within the project artifact take
+ * precedence over their counterparts within the source artifact.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Mojo(
+        name = "package-resources",
+        requiresProject = false,
+        threadSafe = true,
+        defaultPhase = LifecyclePhase.PACKAGE
+)
+public class PackageResourcesMojo extends AbstractMappingMojo {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        this.verifyProperties("module", "gameVersion", "mappingVersion", "resourceMode", "accessTransformationMode", "decompiler");
+
+        if (!this.isArchiveResourceMode()) {
+            this.getLog().info("Skipping resource packaging - Resources have been extracted into the resource directory");
+            return;
+        }
+
+        this.getLog().info("Packaging Resources");
+
+        File projectArtifact = this.getProject().getArtifact().getFile();
+
+        if (projectArtifact == null || !projectArtifact.isFile()) {
+            throw new MojoFailureException("Cannot locate project artifact - Resources need to be packaged after the project artifact has been created");
+        }
+
+        try {
+            final Path sourceArtifact;
+
+            {
+                Artifact a = this.getSourceArtifact();
+                sourceArtifact = this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
+            }
+
+            Path target = projectArtifact.toPath();
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            Set<String> names = new HashSet<>();
+            int[] count = new int[1];
+
+            try (ZipFile projectFile = new ZipFile(target.toFile()); ZipFile sourceFile = new ZipFile(sourceArtifact.toFile())) {
+                try (ZipArchiveOutputStream outputStream = new ZipArchiveOutputStream(tmp.toFile())) {
+                    projectFile.copyRawEntries(outputStream, (e) -> names.add(e.getName()));
+                    sourceFile.copyRawEntries(outputStream, (e) -> {
+                        String name = e.getName();
+
+                        if (e.isDirectory() || name.endsWith(".java") || names.contains(name) || (this.getExcludedResources() != null && this.getExcludedResources().contains(name))) {
+                            return false;
+                        }
+
+                        ++count[0];
+                        return true;
+                    });
+                }
+            }
+
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.getLog().info("Packaged " + count[0] + " resources into " + target.getFileName());
+        } catch (ArtifactResolutionException ex) {
+            throw new MojoFailureException("Cannot resolve artifact: " + ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new MojoFailureException("Cannot read source artifact or write project artifact: " + ex.getMessage(), ex);
+        }
+    }
+}
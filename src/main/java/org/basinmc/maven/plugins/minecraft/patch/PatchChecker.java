@@ -0,0 +1,363 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.patch.HunkHeader;
+import org.eclipse.jgit.patch.Patch;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Checks whether a stack of patches applies cleanly on top of a certain commit without modifying
+ * the repository or its working tree.
+ *
+ * Patches are parsed (and the blobs they refer to are looked up within the base commit) in
+ * parallel. The pre-image of every file (as given by the blob identifiers within the index line
+ * of a patch) is then compared against the base commit or the post-image of the last preceding
+ * patch which touched the same file. When the pre-image of a file within the base commit differs,
+ * the context of every hunk is located within the actual file instead (permitting offsets and
+ * whitespace changes as git does when applying the patch).
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class PatchChecker {
+    private static final String ABSENT = "";
+
+    private final Repository repository;
+    private final int threads;
+
+    public PatchChecker(@Nonnull Repository repository, @Nonnegative int threads) {
+        this.repository = repository;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Checks an ordered list of patches against the supplied base commit.
+     *
+     * @return a list of conflicts (or an empty list if all patches are expected to apply
+     * cleanly).
+     * @throws IOException when reading the repository or one of the patches fails.
+     */
+    @Nonnull
+    public List<Conflict> check(@Nonnull ObjectId base, @Nonnull List<Path> patches) throws IOException {
+        final RevTree tree;
+
+        try (RevWalk walk = new RevWalk(this.repository)) {
+            tree = walk.parseCommit(base).getTree();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+        List<ParsedPatch> parsed = new ArrayList<>(patches.size());
+
+        try {
+            List<Future<ParsedPatch>> futures = new ArrayList<>(patches.size());
+
+            for (Path patch : patches) {
+                futures.add(executor.submit(() -> this.parse(tree, patch)));
+            }
+
+            for (Future<ParsedPatch> future : futures) {
+                parsed.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException("Failed to parse patch: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while awaiting patch parsing");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (ObjectReader reader = this.repository.newObjectReader()) {
+            return verify(reader, parsed);
+        }
+    }
+
+    /**
+     * Parses a single patch and resolves the base blobs of all files it refers to.
+     */
+    @Nonnull
+    private ParsedPatch parse(@Nonnull RevTree tree, @Nonnull Path path) throws IOException {
+        Patch patch = new Patch();
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            patch.parse(inputStream);
+        }
+
+        Map<String, String> baseIds = new HashMap<>();
+
+        try (ObjectReader reader = this.repository.newObjectReader()) {
+            for (FileHeader header : patch.getFiles()) {
+                for (String file : new String[]{header.getOldPath(), header.getNewPath()}) {
+                    if (file == null || DiffEntry.DEV_NULL.equals(file) || baseIds.containsKey(file)) {
+                        continue;
+                    }
+
+                    try (TreeWalk walk = TreeWalk.forPath(reader, file, tree)) {
+                        baseIds.put(file, (walk == null ? ABSENT : walk.getObjectId(0).name()));
+                    }
+                }
+            }
+        }
+
+        return new ParsedPatch(path, patch.getFiles(), baseIds);
+    }
+
+    /**
+     * Verifies the pre-images of all parsed patches in order.
+     */
+    @Nonnull
+    private static List<Conflict> verify(@Nonnull ObjectReader reader, @Nonnull List<ParsedPatch> patches) throws IOException {
+        List<Conflict> conflicts = new ArrayList<>();
+        Map<String, String> state = new HashMap<>();
+
+        for (ParsedPatch patch : patches) {
+            for (FileHeader header : patch.files) {
+                DiffEntry.ChangeType type = header.getChangeType();
+
+                if (type == DiffEntry.ChangeType.ADD) {
+                    String actual = state.getOrDefault(header.getNewPath(), patch.baseIds.get(header.getNewPath()));
+
+                    if (actual != null && !ABSENT.equals(actual)) {
+                        conflicts.add(new Conflict(patch.path, header.getNewPath(), "File already exists"));
+                    }
+                } else {
+                    String actual = state.getOrDefault(header.getOldPath(), patch.baseIds.get(header.getOldPath()));
+
+                    if (actual == null || ABSENT.equals(actual)) {
+                        conflicts.add(new Conflict(patch.path, header.getOldPath(), "File does not exist"));
+                    } else if (!matches(header.getOldId(), actual)) {
+                        // files which have not been touched by a preceding patch are still present
+                        // within the base commit and may thus be checked for their hunk context
+                        int hunk = (state.containsKey(header.getOldPath()) ? 0 : findMismatchingHunk(reader, header, actual));
+
+                        if (hunk == 0) {
+                            conflicts.add(new Conflict(patch.path, header.getOldPath(), "Expected blob " + header.getOldId().name() + " but found " + actual.substring(0, Math.min(actual.length(), header.getOldId().length()))));
+                        } else if (hunk != -1) {
+                            conflicts.add(new Conflict(patch.path, header.getOldPath(), "Context of hunk #" + hunk + " does not match blob " + actual.substring(0, Math.min(actual.length(), header.getOldId().length()))));
+                        }
+                    }
+                }
+
+                // the state is always advanced to the post-image stated by the patch so that
+                // subsequent patches are not reported as a consequence of a previous conflict
+                if (type == DiffEntry.ChangeType.DELETE || type == DiffEntry.ChangeType.RENAME) {
+                    state.put(header.getOldPath(), ABSENT);
+                }
+
+                if (type != DiffEntry.ChangeType.DELETE && header.getNewId() != null) {
+                    state.put(header.getNewPath(), header.getNewId().name());
+                }
+            }
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Locates the pre-image of every hunk within a blob in order.
+     *
+     * @return the (one-based) number of the first hunk which cannot be located, zero if the patch
+     * does not consist of textual hunks or -1 if all hunks have been located.
+     */
+    private static int findMismatchingHunk(@Nonnull ObjectReader reader, @Nonnull FileHeader header, @Nonnull String blob) throws IOException {
+        if (header.getPatchType() != FileHeader.PatchType.UNIFIED || header.getHunks().isEmpty()) {
+            return 0;
+        }
+
+        String[] lines = normalizeLines(new String(reader.open(ObjectId.fromString(blob)).getBytes(), StandardCharsets.UTF_8));
+        int position = 0;
+
+        for (int i = 0; i < header.getHunks().size(); ++i) {
+            HunkHeader hunk = header.getHunks().get(i);
+            List<String> preImage = getPreImage(hunk);
+            int index = indexOf(lines, preImage, position);
+
+            if (index == -1) {
+                return i + 1;
+            }
+
+            position = index + preImage.size();
+        }
+
+        return -1;
+    }
+
+    /**
+     * Retrieves the (whitespace normalized) context and removed lines of a hunk.
+     */
+    @Nonnull
+    private static List<String> getPreImage(@Nonnull HunkHeader hunk) {
+        String contents = new String(hunk.getBuffer(), hunk.getStartOffset(), hunk.getEndOffset() - hunk.getStartOffset(), StandardCharsets.UTF_8);
+        String[] lines = contents.split("\n", -1);
+        List<String> preImage = new ArrayList<>();
+
+        // the first line consists of the hunk header itself
+        for (int i = 1; i < lines.length; ++i) {
+            String line = lines[i];
+
+            if (line.isEmpty()) {
+                // the trailing line break of the hunk as well as context lines which have lost
+                // their leading space
+                if (i != lines.length - 1) {
+                    preImage.add("");
+                }
+            } else if (line.charAt(0) == ' ' || line.charAt(0) == '-') {
+                preImage.add(normalizeLine(line.substring(1)));
+            }
+        }
+
+        return preImage;
+    }
+
+    /**
+     * Locates a sequence of lines within a file starting at the supplied line.
+     */
+    private static int indexOf(@Nonnull String[] lines, @Nonnull List<String> sequence, @Nonnegative int start) {
+        for (int i = start; i <= lines.length - sequence.size(); ++i) {
+            int j = 0;
+
+            while (j < sequence.size() && lines[i + j].equals(sequence.get(j))) {
+                ++j;
+            }
+
+            if (j == sequence.size()) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Splits a file into its (whitespace normalized) lines.
+     */
+    @Nonnull
+    private static String[] normalizeLines(@Nonnull String contents) {
+        String[] lines = contents.split("\n", -1);
+
+        for (int i = 0; i < lines.length; ++i) {
+            lines[i] = normalizeLine(lines[i]);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Collapses all whitespace within a line (matching the behavior of git am --ignore-whitespace).
+     */
+    @Nonnull
+    private static String normalizeLine(@Nonnull String line) {
+        return line.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Checks whether an abbreviated identifier matches a (potentially abbreviated) identifier.
+     */
+    private static boolean matches(@Nullable AbbreviatedObjectId expected, @Nonnull String actual) {
+        // patches which only alter the file mode do not carry any blob identifiers
+        if (expected == null) {
+            return true;
+        }
+
+        String name = expected.name();
+        return actual.startsWith(name) || name.startsWith(actual);
+    }
+
+    /**
+     * Represents a patch along with the base blobs of the files it refers to.
+     */
+    private static class ParsedPatch {
+        private final Path path;
+        private final List<? extends FileHeader> files;
+        private final Map<String, String> baseIds;
+
+        ParsedPatch(@Nonnull Path path, @Nonnull List<? extends FileHeader> files, @Nonnull Map<String, String> baseIds) {
+            this.path = path;
+            this.files = files;
+            this.baseIds = baseIds;
+        }
+    }
+
+    /**
+     * Represents a file within a patch which is not expected to apply cleanly.
+     */
+    @Immutable
+    @ThreadSafe
+    public static class Conflict {
+        private final Path patch;
+        private final String file;
+        private final String reason;
+
+        Conflict(@Nonnull Path patch, @Nonnull String file, @Nonnull String reason) {
+            this.patch = patch;
+            this.file = file;
+            this.reason = reason;
+        }
+
+        @Nonnull
+        public String getFile() {
+            return this.file;
+        }
+
+        @Nonnull
+        public Path getPatch() {
+            return this.patch;
+        }
+
+        @Nonnull
+        public String getReason() {
+            return this.reason;
+        }
+    }
+}
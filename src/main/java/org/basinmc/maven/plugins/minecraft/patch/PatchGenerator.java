@@ -0,0 +1,599 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Generates patch files in the format produced by {@code git format-patch --no-stat -N} without
+ * invoking an external git process.
+ *
+ * Patch files are only written when their contents actually change (ignoring the volatile header
+ * and signature lines) and patch files which no longer correspond to a commit are removed.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@NotThreadSafe
+public class PatchGenerator {
+    private static final String PATCH_SUFFIX = ".patch";
+    private static final String MAGIC_DATE = " Mon Sep 17 00:00:00 2001";
+    private static final String SIGNATURE_SEPARATOR = "\n-- \n";
+    private static final String SIGNATURE = "minecraft-maven-plugin";
+    private static final int MAXIMUM_NAME_LENGTH = 57;
+    private static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, d MMM yyyy HH:mm:ss Z", Locale.US);
+
+    private final Repository repository;
+    private final Path patchDirectory;
+    private final int threads;
+    private final long memoryBudget;
+
+    public PatchGenerator(@Nonnull Repository repository, @Nonnull Path patchDirectory, @Nonnegative int threads) {
+        this(repository, patchDirectory, threads, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public PatchGenerator(@Nonnull Repository repository, @Nonnull Path patchDirectory, @Nonnegative int threads, @Nonnegative long memoryBudget) {
+        this.repository = repository;
+        this.patchDirectory = patchDirectory;
+        this.threads = Math.max(1, threads);
+        this.memoryBudget = Math.max(this.threads, memoryBudget);
+    }
+
+    /**
+     * Generates patch files for all commits between the supplied upstream revision and HEAD.
+     *
+     * Commits are rendered by a pool of worker threads which each maintain their own formatter
+     * (and thus their own object reader). Every worker is granted an equal share of the memory
+     * budget while diffs which exceed this share are rendered exclusively.
+     *
+     * @throws IOException when reading the repository or accessing the patch directory fails.
+     */
+    @Nonnull
+    public Result generate(@Nonnull String upstream) throws IOException {
+        List<RevCommit> commits = this.getCommits(upstream);
+        Set<Path> patches = new HashSet<>();
+
+        int share = (int) Math.min(Integer.MAX_VALUE - 8, this.memoryBudget / this.threads);
+        Semaphore budget = new Semaphore(this.threads, true);
+        List<Renderer> renderers = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Renderer> renderer = ThreadLocal.withInitial(() -> {
+            Renderer r = new Renderer(share);
+            renderers.add(r);
+            return r;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(commits.size());
+
+            for (int i = 0; i < commits.size(); ++i) {
+                final RevCommit commit = commits.get(i);
+                final Path path = this.patchDirectory.resolve(getFileName(i + 1, commit.getShortMessage()));
+                patches.add(path.toAbsolutePath());
+
+                futures.add(executor.submit(() -> this.process(renderer, renderers, budget, path, commit)));
+            }
+
+            int written = 0;
+
+            for (Future<Boolean> future : futures) {
+                if (future.get()) {
+                    ++written;
+                }
+            }
+
+            return new Result(commits.size(), written, this.removeStalePatches(patches));
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IOException("Failed to render patch: " + cause.getMessage(), cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while awaiting patch rendering");
+        } finally {
+            executor.shutdownNow();
+
+            // renderers may still be in use by workers which have yet to react to their
+            // interruption and are thus only released once all workers have terminated
+            awaitTermination(executor);
+            renderers.forEach(Renderer::close);
+        }
+    }
+
+    /**
+     * Waits for the termination of all workers within an executor (the interruption state of the
+     * calling thread is preserved).
+     */
+    private static void awaitTermination(@Nonnull ExecutorService executor) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Renders and writes a single patch within the bounds of the memory budget.
+     *
+     * @return true if the patch has been written, false otherwise.
+     */
+    private boolean process(@Nonnull ThreadLocal<Renderer> renderer, @Nonnull List<Renderer> renderers, @Nonnull Semaphore budget, @Nonnull Path path, @Nonnull RevCommit commit) throws IOException, InterruptedException {
+        budget.acquire();
+
+        try {
+            return this.write(path, renderer.get().render(commit));
+        } catch (BudgetExceededException ex) {
+            // the formatter may still hold parts of the aborted diff and is thus discarded
+            Renderer r = renderer.get();
+            renderer.remove();
+            renderers.remove(r);
+            r.close();
+        } finally {
+            budget.release();
+        }
+
+        budget.acquire(this.threads);
+
+        try (Renderer r = new Renderer(Integer.MAX_VALUE - 8)) {
+            return this.write(path, r.render(commit));
+        } finally {
+            budget.release(this.threads);
+        }
+    }
+
+    /**
+     * Creates a diff formatter which is configured to match the output of git.
+     *
+     * The git generator invokes git format-patch with --minimal which computes its diffs using
+     * the Myers algorithm (as opposed to the histogram algorithm JGit defaults to) without rename
+     * detection and with three lines of context. Note that the generators may still disagree on
+     * the placement of ambiguous changes (e.g. a repeated line which may be attributed to either
+     * of its occurrences) and that JGit does not append the enclosing declaration to hunk headers.
+     * Switching generators may thus cause a one-time rewrite of some patches.
+     */
+    @Nonnull
+    DiffFormatter createFormatter(@Nonnull OutputStream outputStream) {
+        DiffFormatter formatter = new DiffFormatter(outputStream);
+        formatter.setRepository(this.repository);
+        formatter.setDiffAlgorithm(DiffAlgorithm.getAlgorithm(DiffAlgorithm.SupportedAlgorithm.MYERS));
+        formatter.setDetectRenames(false);
+        formatter.setContext(3);
+        return formatter;
+    }
+
+    /**
+     * Retrieves all non-merge commits between the supplied upstream revision and HEAD in the order
+     * they have been applied in.
+     */
+    @Nonnull
+    List<RevCommit> getCommits(@Nonnull String upstream) throws IOException {
+        ObjectId upstreamId = this.repository.resolve(upstream);
+        ObjectId headId = this.repository.resolve("HEAD");
+
+        if (upstreamId == null || headId == null) {
+            throw new IOException("Cannot resolve " + (upstreamId == null ? upstream : "HEAD"));
+        }
+
+        List<RevCommit> commits = new ArrayList<>();
+
+        try (RevWalk walk = new RevWalk(this.repository)) {
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.REVERSE, true);
+            walk.markStart(walk.parseCommit(headId));
+            walk.markUninteresting(walk.parseCommit(upstreamId));
+
+            for (RevCommit commit : walk) {
+                if (commit.getParentCount() == 1) {
+                    // parents are parsed up front as commits are handed to worker threads which
+                    // cannot safely access the walk
+                    walk.parseHeaders(commit.getParent(0));
+                    commits.add(commit);
+                }
+            }
+        }
+
+        return commits;
+    }
+
+    /**
+     * Computes the file name of a patch in the same manner as git does.
+     */
+    @Nonnull
+    static String getFileName(int index, @Nonnull String subject) {
+        StringBuilder builder = new StringBuilder(String.format("%04d-", index));
+        boolean separator = false;
+        boolean leading = true;
+
+        for (int i = 0; i < subject.length(); ++i) {
+            char c = subject.charAt(i);
+
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '_') {
+                if (separator && !leading) {
+                    builder.append('-');
+                }
+
+                separator = false;
+                leading = false;
+                builder.append(c);
+
+                // consecutive dots are collapsed in order to avoid confusion with relative paths
+                while (c == '.' && i + 1 < subject.length() && subject.charAt(i + 1) == '.') {
+                    ++i;
+                }
+            } else {
+                separator = true;
+            }
+        }
+
+        while (builder.length() > 5 && (builder.charAt(builder.length() - 1) == '.' || builder.charAt(builder.length() - 1) == '-')) {
+            builder.setLength(builder.length() - 1);
+        }
+
+        if (builder.length() > MAXIMUM_NAME_LENGTH) {
+            builder.setLength(MAXIMUM_NAME_LENGTH);
+        }
+
+        return builder.append(PATCH_SUFFIX).toString();
+    }
+
+    /**
+     * Renders a single commit in the mailbox format produced by git into the stream the supplied
+     * formatter is bound to.
+     */
+    void render(@Nonnull DiffFormatter formatter, @Nonnull OutputStream outputStream, @Nonnull RevCommit commit) throws IOException {
+        PersonIdent author = commit.getAuthorIdent();
+
+        String subject = commit.getShortMessage();
+        String body = getBody(commit.getFullMessage());
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("From ").append(commit.name()).append(MAGIC_DATE).append('\n');
+        builder.append("From: ").append(encodeHeader(author.getName())).append(" <").append(author.getEmailAddress()).append(">\n");
+        builder.append("Date: ").append(DATE_FORMATTER.format(Instant.ofEpochMilli(author.getWhen().getTime()).atOffset(ZoneOffset.ofTotalSeconds(author.getTimeZoneOffset() * 60)))).append('\n');
+        builder.append("Subject: [PATCH] ").append(encodeHeader(subject)).append('\n');
+
+        if (!isAscii(subject) || !isAscii(body) || !isAscii(author.getName())) {
+            builder.append("MIME-Version: 1.0\n");
+            builder.append("Content-Type: text/plain; charset=UTF-8\n");
+            builder.append("Content-Transfer-Encoding: 8bit\n");
+        }
+
+        builder.append('\n');
+
+        if (!body.isEmpty()) {
+            builder.append(body).append('\n');
+        }
+
+        builder.append('\n');
+        outputStream.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+
+        formatter.format(commit.getParent(0).getTree(), commit.getTree());
+        formatter.flush();
+
+        outputStream.write((SIGNATURE_SEPARATOR.substring(1) + SIGNATURE + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a patch unless an equivalent version of the patch is already present.
+     *
+     * @return true if the patch has been written, false otherwise.
+     */
+    boolean write(@Nonnull Path path, @Nonnull byte[] patch) throws IOException {
+        if (Files.isRegularFile(path) && normalize(Files.readAllBytes(path)).equals(normalize(patch))) {
+            return false;
+        }
+
+        Files.write(path, patch);
+        return true;
+    }
+
+    /**
+     * Removes all patch files which are not part of the supplied set of patches.
+     *
+     * @return the amount of removed patches.
+     */
+    int removeStalePatches(@Nonnull Set<Path> patches) throws IOException {
+        final List<Path> stale;
+
+        try (Stream<Path> stream = Files.walk(this.patchDirectory)) {
+            stale = stream
+                    .filter((p) -> p.getFileName().toString().endsWith(PATCH_SUFFIX))
+                    .filter((p) -> !patches.contains(p.toAbsolutePath()))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path path : stale) {
+            Files.delete(path);
+        }
+
+        return stale.size();
+    }
+
+    /**
+     * Extracts the message body (e.g. everything following the first paragraph) from a commit
+     * message.
+     */
+    @Nonnull
+    private static String getBody(@Nonnull String message) {
+        int index = message.indexOf("\n\n");
+
+        if (index == -1) {
+            return "";
+        }
+
+        String body = message.substring(index + 2);
+        int start = 0;
+
+        while (start < body.length() && body.charAt(start) == '\n') {
+            ++start;
+        }
+
+        int end = body.length();
+
+        while (end > start && Character.isWhitespace(body.charAt(end - 1))) {
+            --end;
+        }
+
+        return body.substring(start, end);
+    }
+
+    /**
+     * Checks whether a string consists of ASCII characters only.
+     */
+    private static boolean isAscii(@Nonnull String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Encodes a header value in accordance with RFC 2047 when it contains non-ASCII characters.
+     */
+    @Nonnull
+    private static String encodeHeader(@Nonnull String value) {
+        if (isAscii(value)) {
+            return value;
+        }
+
+        StringBuilder builder = new StringBuilder("=?UTF-8?q?");
+
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '!' || c == '*' || c == '+' || c == '-' || c == '/') {
+                builder.append(c);
+            } else {
+                builder.append(String.format("=%02X", (int) c));
+            }
+        }
+
+        return builder.append("?=").toString();
+    }
+
+    /**
+     * Strips the volatile portions (e.g. the commit identifier and the signature) from a patch in
+     * order to compare its contents.
+     */
+    @Nonnull
+    static String normalize(@Nonnull byte[] patch) {
+        String contents = new String(patch, StandardCharsets.UTF_8);
+
+        if (contents.startsWith("From ")) {
+            int end = contents.indexOf('\n');
+
+            if (end != -1 && contents.substring(0, end).endsWith(MAGIC_DATE)) {
+                contents = contents.substring(end + 1);
+            }
+        }
+
+        int signature = contents.lastIndexOf(SIGNATURE_SEPARATOR);
+
+        if (signature != -1) {
+            contents = contents.substring(0, signature + 1);
+        }
+
+        return contents;
+    }
+
+    /**
+     * Renders patches using a dedicated formatter and output buffer.
+     */
+    private class Renderer implements AutoCloseable {
+        private final BoundedOutputStream outputStream;
+        private final DiffFormatter formatter;
+
+        Renderer(@Nonnegative int limit) {
+            this.outputStream = new BoundedOutputStream(limit);
+            this.formatter = PatchGenerator.this.createFormatter(this.outputStream);
+        }
+
+        /**
+         * Renders a single commit.
+         *
+         * @throws BudgetExceededException when the rendered patch exceeds the buffer limit.
+         */
+        @Nonnull
+        byte[] render(@Nonnull RevCommit commit) throws IOException {
+            this.outputStream.reset();
+            PatchGenerator.this.render(this.formatter, this.outputStream, commit);
+            return this.outputStream.toByteArray();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            this.formatter.close();
+        }
+    }
+
+    /**
+     * Provides an in-memory output stream which refuses to grow beyond a certain limit.
+     */
+    private static class BoundedOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int limit;
+
+        BoundedOutputStream(@Nonnegative int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Ensures that a write of the supplied length does not exceed the limit.
+         */
+        private void ensureCapacity(int length) throws BudgetExceededException {
+            if (length > this.limit - this.buffer.size()) {
+                throw new BudgetExceededException();
+            }
+        }
+
+        /**
+         * Discards all previously written data.
+         */
+        void reset() {
+            this.buffer.reset();
+        }
+
+        /**
+         * Retrieves a copy of all previously written data.
+         */
+        @Nonnull
+        byte[] toByteArray() {
+            return this.buffer.toByteArray();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int b) throws IOException {
+            this.ensureCapacity(1);
+            this.buffer.write(b);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+            this.ensureCapacity(len);
+            this.buffer.write(b, off, len);
+        }
+    }
+
+    /**
+     * Indicates that a rendered patch exceeds its share of the memory budget.
+     */
+    private static class BudgetExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException() {
+            super("Memory budget exceeded");
+        }
+    }
+
+    /**
+     * Represents the outcome of a patch generation.
+     */
+    public static class Result {
+        private final int total;
+        private final int written;
+        private final int removed;
+
+        Result(int total, int written, int removed) {
+            this.total = total;
+            this.written = written;
+            this.removed = removed;
+        }
+
+        /**
+         * Retrieves the amount of removed stale patches.
+         */
+        public int getRemoved() {
+            return this.removed;
+        }
+
+        /**
+         * Retrieves the total amount of generated patches.
+         */
+        public int getTotal() {
+            return this.total;
+        }
+
+        /**
+         * Retrieves the amount of patches which have actually been written.
+         */
+        public int getWritten() {
+            return this.written;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Represents the state a repository has been left in after applying a set of patches.
+ *
+ * Besides the resulting commit, the state keeps track of the commit each patch produced (keyed
+ * by the content hash of the patch) in order to permit partial reapplication of a patch stack.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class PatchState {
+    private static final String UPSTREAM_KEY = "upstream";
+    private static final String FINGERPRINT_KEY = "fingerprint";
+    private static final String RESULT_KEY = "result";
+    private static final String PATCH_KEY = "patch";
+
+    private final ObjectId upstream;
+    private final String fingerprint;
+    private final ObjectId result;
+    private final List<Entry> entries;
+
+    public PatchState(@Nonnull ObjectId upstream, @Nullable String fingerprint, @Nonnull ObjectId result, @Nonnull List<Entry> entries) {
+        this.upstream = upstream.copy();
+        this.fingerprint = fingerprint;
+        this.result = result.copy();
+        this.entries = ImmutableList.copyOf(entries);
+    }
+
+    /**
+     * Computes a fingerprint based on an upstream commit and an ordered set of patches along with
+     * their respective content hashes.
+     */
+    @Nonnull
+    public static String fingerprint(@Nonnull ObjectId upstream, @Nonnull Path patchDirectory, @Nonnull List<Path> patches, @Nonnull List<HashCode> hashes) {
+        Hasher hasher = Hashing.sha1().newHasher();
+        hasher.putString(upstream.name(), StandardCharsets.UTF_8);
+
+        for (int i = 0; i < patches.size(); ++i) {
+            hasher.putString(patchDirectory.relativize(patches.get(i)).toString(), StandardCharsets.UTF_8);
+            hasher.putBytes(hashes.get(i).asBytes());
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Computes the content hash of a single patch.
+     *
+     * The commit identifier within the mailbox header as well as the signature are excluded from
+     * the hash since both change whenever the patches are applied and regenerated even though the
+     * patch itself remains unchanged.
+     *
+     * @throws IOException when reading the patch fails.
+     */
+    @Nonnull
+    public static HashCode hash(@Nonnull Path patch) throws IOException {
+        return Hashing.sha1().hashString(PatchGenerator.normalize(Files.readAllBytes(patch)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a previously persisted state (if any).
+     *
+     * @throws IOException when reading the state fails.
+     */
+    @Nullable
+    public static PatchState read(@Nonnull Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        ObjectId upstream = null;
+        String fingerprint = null;
+        ObjectId result = null;
+        List<Entry> entries = new ArrayList<>();
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            String[] elements = line.split(" ");
+
+            switch (elements[0]) {
+                case UPSTREAM_KEY:
+                    upstream = parseId(elements, 1);
+                    break;
+                case FINGERPRINT_KEY:
+                    fingerprint = (elements.length > 1 ? elements[1] : null);
+                    break;
+                case RESULT_KEY:
+                    result = parseId(elements, 1);
+                    break;
+                case PATCH_KEY:
+                    ObjectId commit = parseId(elements, 2);
+
+                    if (commit == null) {
+                        return null;
+                    }
+
+                    entries.add(new Entry(elements[1], commit));
+                    break;
+            }
+        }
+
+        if (upstream == null || result == null) {
+            return null;
+        }
+
+        return new PatchState(upstream, fingerprint, result, entries);
+    }
+
+    /**
+     * Parses an object identifier from a set of line elements.
+     */
+    @Nullable
+    private static ObjectId parseId(@Nonnull String[] elements, int index) {
+        if (elements.length <= index || !ObjectId.isId(elements[index])) {
+            return null;
+        }
+
+        return ObjectId.fromString(elements[index]);
+    }
+
+    /**
+     * Persists this state.
+     *
+     * @throws IOException when writing the state fails.
+     */
+    public void write(@Nonnull Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(UPSTREAM_KEY).append(' ').append(this.upstream.name()).append('\n');
+
+        if (this.fingerprint != null) {
+            builder.append(FINGERPRINT_KEY).append(' ').append(this.fingerprint).append('\n');
+        }
+
+        builder.append(RESULT_KEY).append(' ').append(this.result.name()).append('\n');
+
+        for (Entry entry : this.entries) {
+            builder.append(PATCH_KEY).append(' ').append(entry.getHash()).append(' ').append(entry.getCommit().name()).append('\n');
+        }
+
+        Files.write(path, builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Retrieves the longest prefix of applied patches which remain unchanged within the supplied
+     * ordered list of patch hashes (e.g. the patches which do not need to be reapplied).
+     *
+     * No entries are reused when the upstream commit changed and the prefix ends at the first entry
+     * whose commit no longer exists within the repository.
+     */
+    @Nonnull
+    public List<Entry> getUnchangedEntries(@Nonnull ObjectId upstream, @Nonnull List<HashCode> hashes, @Nonnull Predicate<ObjectId> commitExists) {
+        List<Entry> entries = new ArrayList<>();
+
+        if (!this.upstream.equals(upstream)) {
+            return entries;
+        }
+
+        for (int i = 0; i < Math.min(hashes.size(), this.entries.size()); ++i) {
+            Entry entry = this.entries.get(i);
+
+            if (!entry.getHash().equals(hashes.get(i).toString()) || !commitExists.test(entry.getCommit())) {
+                break;
+            }
+
+            entries.add(entry);
+        }
+
+        return entries;
+    }
+
+    @Nonnull
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Retrieves the fingerprint of the applied patch set or, if the patch set has only been
+     * partially applied, an empty optional.
+     */
+    @Nonnull
+    public Optional<String> getFingerprint() {
+        return Optional.ofNullable(this.fingerprint);
+    }
+
+    @Nonnull
+    public ObjectId getResult() {
+        return this.result;
+    }
+
+    @Nonnull
+    public ObjectId getUpstream() {
+        return this.upstream;
+    }
+
+    /**
+     * Represents a single applied patch.
+     */
+    @Immutable
+    @ThreadSafe
+    public static class Entry {
+        private final String hash;
+        private final ObjectId commit;
+
+        public Entry(@Nonnull String hash, @Nonnull ObjectId commit) {
+            this.hash = hash;
+            this.commit = commit.copy();
+        }
+
+        @Nonnull
+        public ObjectId getCommit() {
+            return this.commit;
+        }
+
+        @Nonnull
+        public String getHash() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Executes external processes while draining their output streams as the output arrives.
+ *
+ * Both standard output and standard error are consumed on dedicated background threads in order
+ * to prevent processes from blocking on a full pipe buffer.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@Immutable
+@ThreadSafe
+public class ProcessRunner {
+    private final Consumer<String> outputConsumer;
+    private final Consumer<String> errorConsumer;
+    private final long timeout;
+
+    /**
+     * @param outputConsumer a consumer which receives every line written to standard output.
+     * @param errorConsumer a consumer which receives every line written to standard error.
+     * @param timeout a timeout in milliseconds (or zero to wait indefinitely).
+     */
+    public ProcessRunner(@Nonnull Consumer<String> outputConsumer, @Nonnull Consumer<String> errorConsumer, @Nonnegative long timeout) {
+        this.outputConsumer = outputConsumer;
+        this.errorConsumer = errorConsumer;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Starts a process and waits for it to exit.
+     *
+     * @return the exit code of the process.
+     * @throws IOException when starting the process fails or it exceeds the timeout.
+     * @throws InterruptedException when the calling thread is interrupted while waiting.
+     */
+    public int run(@Nonnull ProcessBuilder builder) throws IOException, InterruptedException {
+        Process process = builder.start();
+        String name = builder.command().get(0);
+
+        Thread outputThread = drain(name + " (stdout)", process.getInputStream(), this.outputConsumer);
+        Thread errorThread = drain(name + " (stderr)", process.getErrorStream(), this.errorConsumer);
+
+        try {
+            if (this.timeout == 0) {
+                process.waitFor();
+            } else if (!process.waitFor(this.timeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Process " + String.join(" ", builder.command()) + " did not exit within " + this.timeout + " ms");
+            }
+
+            // the streams are closed when the process exits and thus the drain threads will
+            // terminate as soon as they have passed on the remaining output
+            outputThread.join();
+            errorThread.join();
+
+            return process.exitValue();
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Starts a background thread which passes every line of a stream to the supplied consumer.
+     */
+    @Nonnull
+    private static Thread drain(@Nonnull String name, @Nonnull InputStream inputStream, @Nonnull Consumer<String> consumer) {
+        Thread thread = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.defaultCharset()))) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        consumer.accept(line);
+                    }
+                }
+            } catch (IOException ignore) {
+                // the stream is closed forcefully when a process is destroyed
+            }
+        }, name);
+
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -21,13 +21,22 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.basinmc.maven.plugins.minecraft.AbstractMinecraftMojo;
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
 
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -46,6 +55,8 @@ import javax.annotation.concurrent.ThreadSafe;
 @Immutable
 @ThreadSafe
 public class SafeguardMojo extends AbstractMinecraftMojo {
+    private static final String COMMIT_COUNT_CACHE = "commit-count.cache";
+    private static final String UPSTREAM_REFERENCE = "upstream";
 
     /**
      * {@inheritDoc}
@@ -80,9 +91,9 @@ public class SafeguardMojo extends AbstractMinecraftMojo {
                 return;
             }
 
-            Git git = new Git(repository);
+            StatusCache statusCache = new StatusCache(repository, this.getStateDirectory().resolve(StatusCache.FILE_NAME));
 
-            if (!git.status().call().isClean()) {
+            if (!statusCache.isClean()) {
                 this.getLog().error("The repository at " + this.getSourceDirectory().toString() + " is not in a clean state");
                 this.getLog().error("As such the build will be halted - Please verify that all changes you wish to retain have been commited and turned into patch files");
                 this.getLog().error("If you wish to override this behavior, start the build by passing -Dminecraft.force=true");
@@ -90,12 +101,92 @@ public class SafeguardMojo extends AbstractMinecraftMojo {
                 throw new MojoFailureException("Repository is in a dirty state");
             }
 
-            // TODO: Compare number of commits since first commit against amount of patches to
-            // prevent accidental loss of changes due to the pending git reset operation
+            this.verifyPatchCount(repository);
         } catch (GitAPIException ex) {
             throw new MojoFailureException("Failed to execute git command: " + ex.getMessage(), ex);
         } catch (IOException ex) {
             throw new MojoFailureException("Could not access source repository: " + ex.getMessage(), ex);
         }
     }
+
+    /**
+     * Verifies that every commit on top of the upstream state has been turned into a patch file
+     * since the pending reset would otherwise discard them.
+     *
+     * Verified states are cached based on the current HEAD in order to skip the history walk in
+     * subsequent builds.
+     */
+    private void verifyPatchCount(@Nonnull Repository repository) throws IOException, MojoFailureException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        ObjectId upstream = repository.resolve(UPSTREAM_REFERENCE);
+
+        if (head == null || upstream == null) {
+            return;
+        }
+
+        int patches = this.countPatches();
+        Path cacheFile = this.getStateDirectory().resolve(COMMIT_COUNT_CACHE);
+        String key = head.name() + " " + upstream.name() + " " + patches;
+
+        if (Files.isRegularFile(cacheFile) && key.equals(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8))) {
+            return;
+        }
+
+        // the walk is aborted as soon as it exceeds the amount of patches since the exact amount
+        // of commits is of no interest to us
+        int commits = countCommits(repository, head, upstream, patches + 1);
+
+        if (commits > patches) {
+            this.getLog().error("The repository at " + this.getSourceDirectory().toString() + " contains more commits than there are patch files (" + patches + ")");
+            this.getLog().error("As such the build will be halted - Please regenerate your patch files before continuing the build");
+            this.getLog().error("If you wish to override this behavior, start the build by passing -Dminecraft.force=true");
+
+            throw new MojoFailureException("Repository contains commits which have not been turned into patch files");
+        }
+
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Counts the non-merge commits between the upstream state and HEAD up to a certain limit.
+     *
+     * Note: The walk only parses commit headers and stops as soon as the limit is reached.
+     */
+    @Nonnegative
+    private static int countCommits(@Nonnull Repository repository, @Nonnull ObjectId head, @Nonnull ObjectId upstream, @Nonnegative int limit) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRetainBody(false);
+            walk.markStart(walk.parseCommit(head));
+            walk.markUninteresting(walk.parseCommit(upstream));
+
+            int count = 0;
+
+            for (RevCommit commit : walk) {
+                if (commit.getParentCount() == 1 && ++count >= limit) {
+                    break;
+                }
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Counts the patch files within the patch directory.
+     */
+    @Nonnegative
+    private int countPatches() throws IOException {
+        Path patchDirectory = this.getPatchDirectory().toPath();
+
+        if (Files.notExists(patchDirectory)) {
+            return 0;
+        }
+
+        try (Stream<Path> stream = Files.walk(patchDirectory)) {
+            return (int) stream
+                    .filter((p) -> p.getFileName().toString().endsWith(".patch"))
+                    .count();
+        }
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Provides a fast check for uncommitted changes within a repository.
+ *
+ * Whenever a repository is found to be clean, the stat data (size, modification time and file key)
+ * of every file within its working tree is persisted. Subsequent checks compare the working tree
+ * against this snapshot and only consult git for paths whose stat data changed.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@NotThreadSafe
+public class StatusCache {
+    public static final String FILE_NAME = "status.cache";
+    private static final int VERSION = 1;
+    private static final long RACY_THRESHOLD = 2000;
+
+    private final Repository repository;
+    private final Path cacheFile;
+
+    public StatusCache(@Nonnull Repository repository, @Nonnull Path cacheFile) {
+        this.repository = repository;
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Checks whether the working tree and index of the repository are free of uncommitted
+     * changes.
+     *
+     * @throws GitAPIException when querying the repository status fails.
+     * @throws IOException when accessing the working tree or cache fails.
+     */
+    public boolean isClean() throws GitAPIException, IOException {
+        String head = this.getHead();
+        Stat index = this.getIndexStat();
+        Snapshot previous = this.readSnapshot();
+
+        // the timestamp is captured prior to the walk while files which have been modified
+        // shortly before it are always re-checked as their modification may not be reflected
+        // within the (potentially coarse) file system timestamps
+        long timestamp = System.currentTimeMillis();
+        Map<String, Stat> current = this.collect();
+
+        Git git = new Git(this.repository);
+
+        if (previous == null || !previous.head.equals(head) || !previous.index.equals(index)) {
+            if (!git.status().call().isClean()) {
+                return false;
+            }
+        } else {
+            Set<String> changed = new HashSet<>();
+
+            current.forEach((path, stat) -> {
+                if (!stat.equals(previous.entries.get(path)) || stat.modified >= TimeUnit.MILLISECONDS.toNanos(previous.timestamp - RACY_THRESHOLD)) {
+                    changed.add(path);
+                }
+            });
+            previous.entries.keySet().stream()
+                    .filter((p) -> !current.containsKey(p))
+                    .forEach(changed::add);
+
+            if (!changed.isEmpty()) {
+                StatusCommand command = git.status();
+                changed.forEach(command::addPath);
+
+                if (!command.call().isClean()) {
+                    return false;
+                }
+            } else {
+                return true;
+            }
+        }
+
+        this.writeSnapshot(new Snapshot(head, index, timestamp, current));
+        return true;
+    }
+
+    /**
+     * Collects the stat data of all files within the working tree.
+     */
+    @Nonnull
+    private Map<String, Stat> collect() throws IOException {
+        Path root = this.repository.getWorkTree().toPath();
+        Path gitDirectory = this.repository.getDirectory().toPath().toAbsolutePath();
+        Map<String, Stat> entries = new HashMap<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.toAbsolutePath().equals(gitDirectory)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                entries.put(root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"), Stat.of(attrs));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return entries;
+    }
+
+    /**
+     * Retrieves the identifier of the current HEAD commit.
+     */
+    @Nonnull
+    private String getHead() throws IOException {
+        ObjectId head = this.repository.resolve(Constants.HEAD);
+        return (head == null ? ObjectId.zeroId() : head).name();
+    }
+
+    /**
+     * Retrieves the stat data of the repository index.
+     */
+    @Nonnull
+    private Stat getIndexStat() throws IOException {
+        Path index = this.repository.getIndexFile().toPath();
+
+        if (Files.notExists(index)) {
+            return new Stat(-1, -1, "");
+        }
+
+        return Stat.of(Files.readAttributes(index, BasicFileAttributes.class));
+    }
+
+    /**
+     * Reads the previously persisted snapshot (if any).
+     */
+    @Nullable
+    private Snapshot readSnapshot() throws IOException {
+        if (!Files.isRegularFile(this.cacheFile)) {
+            return null;
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.cacheFile)))) {
+            if (inputStream.readInt() != VERSION) {
+                return null;
+            }
+
+            String head = inputStream.readUTF();
+            Stat index = Stat.read(inputStream);
+            long timestamp = inputStream.readLong();
+            int count = inputStream.readInt();
+            Map<String, Stat> entries = new HashMap<>(count * 2);
+
+            for (int i = 0; i < count; ++i) {
+                entries.put(inputStream.readUTF(), Stat.read(inputStream));
+            }
+
+            return new Snapshot(head, index, timestamp, entries);
+        } catch (IOException ex) {
+            // corrupted snapshots are simply discarded and replaced by a full status check
+            return null;
+        }
+    }
+
+    /**
+     * Persists a snapshot.
+     */
+    private void writeSnapshot(@Nonnull Snapshot snapshot) throws IOException {
+        Files.createDirectories(this.cacheFile.getParent());
+        Path tmp = this.cacheFile.resolveSibling(this.cacheFile.getFileName() + ".tmp");
+
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            outputStream.writeInt(VERSION);
+            outputStream.writeUTF(snapshot.head);
+            snapshot.index.write(outputStream);
+            outputStream.writeLong(snapshot.timestamp);
+            outputStream.writeInt(snapshot.entries.size());
+
+            for (Map.Entry<String, Stat> entry : snapshot.entries.entrySet()) {
+                outputStream.writeUTF(entry.getKey());
+                entry.getValue().write(outputStream);
+            }
+        }
+
+        Files.move(tmp, this.cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Represents a persisted state of the working tree.
+     */
+    @Immutable
+    private static class Snapshot {
+        private final String head;
+        private final Stat index;
+        private final long timestamp;
+        private final Map<String, Stat> entries;
+
+        Snapshot(@Nonnull String head, @Nonnull Stat index, long timestamp, @Nonnull Map<String, Stat> entries) {
+            this.head = head;
+            this.index = index;
+            this.timestamp = timestamp;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Represents the stat data of a single file.
+     */
+    @Immutable
+    private static class Stat {
+        private final long size;
+        private final long modified;
+        private final String key;
+
+        Stat(long size, long modified, @Nonnull String key) {
+            this.size = size;
+            this.modified = modified;
+            this.key = key;
+        }
+
+        @Nonnull
+        static Stat of(@Nonnull BasicFileAttributes attributes) {
+            Object key = attributes.fileKey();
+            return new Stat(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), (key == null ? "" : key.toString()));
+        }
+
+        @Nonnull
+        static Stat read(@Nonnull DataInputStream inputStream) throws IOException {
+            return new Stat(inputStream.readLong(), inputStream.readLong(), inputStream.readUTF());
+        }
+
+        void write(@Nonnull DataOutputStream outputStream) throws IOException {
+            outputStream.writeLong(this.size);
+            outputStream.writeLong(this.modified);
+            outputStream.writeUTF(this.key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || this.getClass() != o.getClass()) {
+                return false;
+            }
+
+            Stat stat = (Stat) o;
+            return this.size == stat.size && this.modified == stat.modified && this.key.equals(stat.key);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.size, this.modified, this.key);
+        }
+    }
+}
@@ -36,6 +36,9 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.basinmc.maven.plugins.minecraft.AbstractMappingMojo;
+import org.basinmc.maven.plugins.minecraft.access.AccessTransformationMap;
+import org.basinmc.maven.plugins.minecraft.access.AccessTransformationProcessor;
+import org.basinmc.maven.plugins.minecraft.access.ClassHierarchyIndex;
 
 import java.io.BufferedReader;
 import java.io.FileOutputStream;
@@ -46,6 +49,7 @@ import java.io.OutputStreamWriter;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.zip.ZipEntry;
@@ -71,17 +75,45 @@ public class ApplyMappingsMojo extends AbstractMappingMojo {
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        this.verifyProperties("module", "gameVersion", "mappingVersion");
+        this.verifyProperties("module", "gameVersion", "mappingVersion", "accessTransformationMode", "intermediateMode");
 
         Artifact artifact = this.getMappedArtifact();
         this.getLog().info("Mapping module " + this.getModule() + " of version " + this.getGameVersion() + " against SRG " + this.getSrgVersion() + " and MCP " + ("live".equals(this.getMappingVersion()) ? "live mappings" : "version " + this.getMappingVersion()));
 
         try {
-            if (!this.findArtifact(artifact).map((p) -> this.isSnapshotArtifactValid(artifact, p)).isPresent()) {
-                this.populateMappedArtifact();
-            } else {
+            if (this.isMappedArtifactCached()) {
                 this.getLog().info("Skipping module mapping - Cached");
+                return;
             }
+
+            // concurrent builds may have installed the artifact while we were waiting for the
+            // lock and thus its presence is verified again before populating it
+            this.exclusive(artifact, () -> {
+                if (this.isMappedArtifactCached()) {
+                    this.getLog().info("Skipping module mapping - Installed by concurrent build");
+                    return;
+                }
+
+                try {
+                    this.populateMappedArtifact();
+                } catch (ArtifactResolutionException ex) {
+                    throw new MojoFailureException("Cannot resolve artifact: " + ex.getMessage(), ex);
+                }
+            });
+        } catch (IOException ex) {
+            throw new MojoFailureException("Cannot lock artifact " + this.getArtifactCoordinateString(artifact) + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Checks whether a valid version of the mapped artifact is present within the local
+     * repository.
+     */
+    private boolean isMappedArtifactCached() throws MojoFailureException {
+        Artifact artifact = this.getMappedArtifact();
+
+        try {
+            return this.findArtifact(artifact).map((p) -> this.isSnapshotArtifactValid(artifact, p)).orElse(false);
         } catch (ArtifactResolutionException ex) {
             throw new MojoFailureException("Cannot resolve artifact: " + ex.getMessage(), ex);
         }
@@ -125,8 +157,12 @@ public class ApplyMappingsMojo extends AbstractMappingMojo {
         }
 
         try {
+            // the extracted mappings are roughly four times the size of their compressed
+            // counterparts
+            long expectedSize = (Files.size(srgMappingsArtifact) + Files.size(mcpMappingsArtifact)) * 4;
+
             this.temporary((a) -> {
-                this.temporary(4, (m) -> {
+                this.intermediate(expectedSize, 4, (m) -> {
                     final Path srgPath = m[0];
                     final Path mcpFieldsPath = m[1];
                     final Path mcpMethodsPath = m[2];
@@ -161,7 +197,25 @@ public class ApplyMappingsMojo extends AbstractMappingMojo {
                         JarMapping mapping = new JarMapping();
                         mapping.loadMappings(srgReader, null, codersPack, false);
 
-                        JarRemapper remapper = new JarRemapper(mapping);
+                        final JarRemapper remapper;
+
+                        if (this.isBytecodeAccessTransformation()) {
+                            this.getLog().info("Applying access transformations to mapped module");
+                            AccessTransformationMap transformationMap = AccessTransformationMap.read(this.getAccessTransformation().toPath());
+
+                            if (transformationMap.hasInheritedRules()) {
+                                // the hierarchy is indexed by the mapped names since these are
+                                // the names referred to within the configuration
+                                this.getLog().info("Resolving inherited access transformations");
+                                JarRemapper nameRemapper = new JarRemapper(mapping);
+                                transformationMap = transformationMap.resolve(ClassHierarchyIndex.read(minecraftArtifact, nameRemapper::map));
+                            }
+
+                            remapper = new JarRemapper(null, mapping, new AccessTransformationProcessor(transformationMap));
+                        } else {
+                            remapper = new JarRemapper(mapping);
+                        }
+
                         Jar jar = Jar.init(minecraftArtifact.toFile());
 
                         JointProvider inheritanceProvider = new JointProvider();
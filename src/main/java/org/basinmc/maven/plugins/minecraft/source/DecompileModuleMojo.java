@@ -16,11 +16,8 @@
  */
 package org.basinmc.maven.plugins.minecraft.source;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.io.ByteStreams;
 import com.google.googlejavaformat.java.Formatter;
 
-import com.google.googlejavaformat.java.FormatterException;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.installer.ArtifactInstallationException;
 import org.apache.maven.artifact.resolver.ArtifactResolutionException;
@@ -33,26 +30,15 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.basinmc.maven.plugins.minecraft.AbstractMappingMojo;
-import org.codehaus.plexus.util.IOUtil;
-import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
-import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.basinmc.maven.plugins.minecraft.decompiler.ChunkedDecompiler;
+import org.basinmc.maven.plugins.minecraft.decompiler.Decompiler;
+import org.basinmc.maven.plugins.minecraft.decompiler.ForkedDecompiler;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Provides a Mojo which is capable of directly decompiling and caching Minecraft modules in a
@@ -67,28 +53,46 @@ import java.util.zip.ZipOutputStream;
         defaultPhase = LifecyclePhase.INITIALIZE
 )
 public class DecompileModuleMojo extends AbstractMappingMojo {
-    private static final List<String> includedRegularFiles = new ImmutableList.Builder<String>()
-            .add("log4j2.xml")
-            .add("pack.png")
-            .add("yggdrasil_session_pubkey.der")
-            .build();
-
     /**
      * {@inheritDoc}
      */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        this.verifyProperties("module", "gameVersion", "mappingVersion");
+        this.verifyProperties("module", "gameVersion", "mappingVersion", "accessTransformationMode", "intermediateMode", "decompiler");
 
-        Artifact artifact = this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), "source");
+        Artifact artifact = this.getSourceArtifact();
         this.getLog().info("Decompiling module " + this.getModule() + " with version " + this.getGameVersion() + " using MCP " + ("live".equals(this.getMappingVersion()) ? "live mappings" : "mapping version " + this.getMappingVersion()));
 
         try {
-            if (!this.findArtifact(artifact).map((p) -> this.isSnapshotArtifactValid(artifact, p)).isPresent()) {
-                this.populateSourceArtifact();
-            } else {
+            if (this.isSourceArtifactCached()) {
                 this.getLog().info("Skipping decompilation - Cached");
+                return;
             }
+
+            // concurrent builds may have installed the artifact while we were waiting for the
+            // lock and thus its presence is verified again before populating it
+            this.exclusive(artifact, () -> {
+                if (this.isSourceArtifactCached()) {
+                    this.getLog().info("Skipping decompilation - Installed by concurrent build");
+                    return;
+                }
+
+                this.populateSourceArtifact();
+            });
+        } catch (IOException ex) {
+            throw new MojoFailureException("Cannot lock artifact " + this.getArtifactCoordinateString(artifact) + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Checks whether a valid version of the source artifact is present within the local
+     * repository.
+     */
+    private boolean isSourceArtifactCached() throws MojoFailureException {
+        Artifact artifact = this.getSourceArtifact();
+
+        try {
+            return this.findArtifact(artifact).map((p) -> this.isSnapshotArtifactValid(artifact, p)).orElse(false);
         } catch (ArtifactResolutionException ex) {
             throw new MojoFailureException("Failed to resolve artifact: " + ex.getMessage(), ex);
         }
@@ -98,7 +102,7 @@ public class DecompileModuleMojo extends AbstractMappingMojo {
      * Populates the source artifact within the local repository.
      */
     private void populateSourceArtifact() throws MojoFailureException {
-        Artifact artifact = this.createArtifactWithClassifier(MINECRAFT_GROUP_ID, this.getModule(), this.getMappedArtifactVersion(), "source");
+        Artifact artifact = this.getSourceArtifact();
 
         try {
             this.temporary((artifactPath) -> {
@@ -109,99 +113,39 @@ public class DecompileModuleMojo extends AbstractMappingMojo {
                     mappedPath = this.findArtifact(a).orElseThrow(() -> new MojoFailureException("Could not locate artifact " + this.getArtifactCoordinateString(a)));
                 }
 
-                this.temporaryDirectory((tmp) -> {
+                // the stripped module as well as the decompiled sources are expected to be
+                // roughly as large as the mapped module
+                this.intermediateDirectory(Files.size(mappedPath) * 3, (tmp) -> {
                     final Path strippedPath = tmp.resolve("stripped.jar");
-                    final Path ffWorkingDirectory = tmp.resolve("ff");
 
                     this.getLog().info("Stripping dependencies from module");
-                    Files.createDirectory(ffWorkingDirectory);
 
-                    try (ZipFile inputFile = new ZipFile(mappedPath.toFile())) {
-                        try (OutputStream outputStream = new FileOutputStream(strippedPath.toFile())) {
-                            try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
-                                Enumeration<? extends ZipEntry> entries = inputFile.entries();
+                    ModuleArchives.strip(mappedPath, strippedPath);
 
-                                while (entries.hasMoreElements()) {
-                                    ZipEntry entry = entries.nextElement();
-                                    String name = entry.getName();
+                    Decompiler decompiler = Decompiler.find(this.getDecompiler()).orElseThrow(() -> new MojoFailureException("No such decompiler: " + this.getDecompiler()));
 
-                                    if (!name.startsWith("assets") && !name.startsWith("net") && !includedRegularFiles.contains(name)) {
-                                        continue;
-                                    }
+                    final long chunkSize = this.getDecompilerChunkSize() * 1024L;
 
-                                    zipOutputStream.putNextEntry(new ZipEntry(name));
-
-                                    if (!entry.isDirectory()) {
-                                        try (InputStream inputStream = inputFile.getInputStream(entry)) {
-                                            ByteStreams.copy(inputStream, zipOutputStream);
-                                        }
-                                    }
-                                }
-
-                                zipOutputStream.closeEntry();
-                            }
-                        }
+                    if (this.getDecompilerForks() != 0) {
+                        this.getLog().info("Decompiling module using " + decompiler.getName() + " within " + this.getDecompilerForks() + " forked JVM(s)");
+                        decompiler = new ForkedDecompiler(decompiler.getName(), this.getDecompilerForks(), chunkSize, this.getDecompilerJvmArguments(), this.getDecompilerTimeout(), (l) -> this.getLog().debug(l));
+                    } else if (chunkSize != 0) {
+                        this.getLog().info("Decompiling module using " + decompiler.getName() + " in chunks of " + this.getDecompilerChunkSize() + " KiB");
+                        decompiler = new ChunkedDecompiler(decompiler, chunkSize);
+                    } else {
+                        this.getLog().info("Decompiling module using " + decompiler.getName());
                     }
 
-                    this.getLog().info("Decompiling module");
-
-                    Map<String, Integer> ffFlags = new HashMap<>();
-                    ffFlags.put(IFernflowerPreferences.DECOMPILE_INNER, 1);
-                    ffFlags.put(IFernflowerPreferences.REMOVE_BRIDGE, 0);
-                    ffFlags.put(IFernflowerPreferences.REMOVE_SYNTHETIC, 1);
-                    ffFlags.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, 1);
-                    ffFlags.put(IFernflowerPreferences.ASCII_STRING_CHARACTERS, 1);
-                    List<String> args = new ArrayList<>();
-
-                    ffFlags.forEach((pref, value) -> args.add("-" + pref + "=" + String.valueOf(value)));
-                    args.add("-log=ERROR");
-                    args.add(strippedPath.toAbsolutePath().toString());
-                    args.add(ffWorkingDirectory.toAbsolutePath().toString());
-
-                    ConsoleDecompiler.main(args.toArray(new String[0]));
+                    final Path decompiledPath = tmp.resolve("decompiled.jar");
 
-
-                    tmp = ffWorkingDirectory.resolve(strippedPath.getFileName());
-
-                    if (Files.notExists(tmp)) {
-                        throw new MojoFailureException("Failed to decompile module: Unknown fernflower error");
+                    try {
+                        decompiler.decompile(strippedPath, decompiledPath, this.getDecompilerOptions());
+                    } catch (IOException ex) {
+                        throw new MojoFailureException("Failed to decompile module: " + ex.getMessage(), ex);
                     }
 
                     this.getLog().info("Reformatting code");
-                    Formatter formatter = new Formatter();
-
-                    try (ZipFile file = new ZipFile(tmp.toFile())) {
-                        try (FileOutputStream outputStream = new FileOutputStream(artifactPath.toFile())) {
-                            try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
-                                Enumeration<? extends ZipEntry> enumeration = file.entries();
-
-                                while (enumeration.hasMoreElements()) {
-                                    ZipEntry entry = enumeration.nextElement();
-                                    String name = entry.getName();
-
-                                    try (InputStream inputStream = file.getInputStream(entry)) {
-                                        zipOutputStream.putNextEntry(new ZipEntry(name));
-
-                                        if (name.endsWith(".java")) {
-                                            try {
-                                                zipOutputStream.write(formatter
-                                                    .formatSource(IOUtil.toString(inputStream))
-                                                    .getBytes(StandardCharsets.UTF_8));
-                                            } catch (FormatterException ex) {
-                                                throw new MojoFailureException("Failed to format source file: " + name + ": " + ex.getMessage(), ex);
-                                            }
-                                        } else if (name.endsWith(".xml")) {
-                                            zipOutputStream.write(IOUtil.toString(inputStream).replaceAll("\r", "").getBytes(StandardCharsets.UTF_8));
-                                        } else {
-                                            ByteStreams.copy(inputStream, zipOutputStream);
-                                        }
-                                    }
-                                }
-
-                                zipOutputStream.closeEntry();
-                            }
-                        }
-                    }
+                    ModuleArchives.reformat(decompiledPath, artifactPath, new Formatter());
 
                     this.temporary((modelPath) -> {
                         this.getLog().info("Storing module sources as artifact " + this.getArtifactCoordinateString(artifact));
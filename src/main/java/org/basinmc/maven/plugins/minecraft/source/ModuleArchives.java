@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.source;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides the archive processing steps which surround the decompilation of a module.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public final class ModuleArchives {
+    private static final List<String> includedRegularFiles = new ImmutableList.Builder<String>()
+            .add("log4j2.xml")
+            .add("pack.png")
+            .add("yggdrasil_session_pubkey.der")
+            .build();
+
+    private ModuleArchives() {
+    }
+
+    /**
+     * Copies a module while stripping all bundled dependencies (e.g. everything but the game's
+     * own types, its assets and a selected set of regular files).
+     *
+     * @throws IOException when reading the module or writing the stripped module fails.
+     */
+    public static void strip(@Nonnull Path inputPath, @Nonnull Path outputPath) throws IOException {
+        try (ZipFile inputFile = new ZipFile(inputPath.toFile())) {
+            try (OutputStream outputStream = new FileOutputStream(outputPath.toFile())) {
+                try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                    Enumeration<? extends ZipEntry> entries = inputFile.entries();
+
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        String name = entry.getName();
+
+                        if (!name.startsWith("assets") && !name.startsWith("net") && !includedRegularFiles.contains(name)) {
+                            continue;
+                        }
+
+                        zipOutputStream.putNextEntry(new ZipEntry(name));
+
+                        if (!entry.isDirectory()) {
+                            try (InputStream inputStream = inputFile.getInputStream(entry)) {
+                                ByteStreams.copy(inputStream, zipOutputStream);
+                            }
+                        }
+                    }
+
+                    zipOutputStream.closeEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a decompiled module while reformatting all of its source files and normalizing the
+     * line endings of its XML files (all remaining entries are copied as is).
+     *
+     * @throws IOException          when reading the decompiled module or writing the target module
+     *                              fails.
+     * @throws MojoFailureException when a source file cannot be formatted.
+     */
+    public static void reformat(@Nonnull Path inputPath, @Nonnull Path outputPath, @Nonnull Formatter formatter) throws IOException, MojoFailureException {
+        try (ZipFile file = new ZipFile(inputPath.toFile())) {
+            try (FileOutputStream outputStream = new FileOutputStream(outputPath.toFile())) {
+                try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                    Enumeration<? extends ZipEntry> enumeration = file.entries();
+
+                    while (enumeration.hasMoreElements()) {
+                        ZipEntry entry = enumeration.nextElement();
+                        String name = entry.getName();
+
+                        try (InputStream inputStream = file.getInputStream(entry)) {
+                            zipOutputStream.putNextEntry(new ZipEntry(name));
+
+                            if (name.endsWith(".java")) {
+                                try {
+                                    zipOutputStream.write(formatter
+                                        .formatSource(IOUtil.toString(inputStream))
+                                        .getBytes(StandardCharsets.UTF_8));
+                                } catch (FormatterException ex) {
+                                    throw new MojoFailureException("Failed to format source file: " + name + ": " + ex.getMessage(), ex);
+                                }
+                            } else if (name.endsWith(".xml")) {
+                                zipOutputStream.write(IOUtil.toString(inputStream).replaceAll("\r", "").getBytes(StandardCharsets.UTF_8));
+                            } else {
+                                ByteStreams.copy(inputStream, zipOutputStream);
+                            }
+                        }
+                    }
+
+                    zipOutputStream.closeEntry();
+                }
+            }
+        }
+    }
+}
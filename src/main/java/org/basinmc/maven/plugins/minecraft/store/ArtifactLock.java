@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.store;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Serializes the generation of artifacts between threads and processes.
+ *
+ * Threads within the same JVM (e.g. parallel reactor modules) await the future of the current
+ * holder while separate processes (e.g. concurrent builds sharing a local repository) are
+ * coordinated through a file lock. Tasks are expected to re-check whether their artifact has
+ * been created in the meantime once they acquire the lock.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@ThreadSafe
+public final class ArtifactLock {
+    private static final long POLL_INTERVAL = 100;
+    private static final Map<String, CompletableFuture<Void>> HOLDERS = new ConcurrentHashMap<>();
+
+    private ArtifactLock() {
+    }
+
+    /**
+     * Executes a task while holding the lock represented by the supplied file.
+     *
+     * Lock files are retained after the task completes since removing them would permit two
+     * processes to lock different files at the same time.
+     *
+     * @param lockFile a lock file.
+     * @param waitCallback a callback which is invoked when the lock is held by another thread or
+     * process.
+     * @param task a task.
+     * @throws IOException when the lock file cannot be created or locked.
+     */
+    public static <E extends Exception> void run(@Nonnull Path lockFile, @Nonnull Runnable waitCallback, @Nonnull Task<E> task) throws E, IOException {
+        String key = lockFile.toAbsolutePath().normalize().toString();
+        CompletableFuture<Void> holder = new CompletableFuture<>();
+        boolean waited = false;
+
+        CompletableFuture<Void> current;
+
+        while ((current = HOLDERS.putIfAbsent(key, holder)) != null) {
+            if (!waited) {
+                waitCallback.run();
+                waited = true;
+            }
+
+            try {
+                current.get();
+            } catch (ExecutionException ignore) {
+                // failures of the previous holder are of no relevance to us as we'll simply
+                // attempt to generate the artifact ourselves
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while awaiting lock " + lockFile);
+            }
+        }
+
+        try {
+            Files.createDirectories(lockFile.getParent());
+
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = tryLock(channel);
+
+                if (lock == null) {
+                    if (!waited) {
+                        waitCallback.run();
+                    }
+
+                    lock = lock(channel);
+                }
+
+                try {
+                    task.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        } finally {
+            HOLDERS.remove(key, holder);
+            holder.complete(null);
+        }
+    }
+
+    /**
+     * Attempts to acquire a file lock without blocking.
+     */
+    @Nullable
+    private static FileLock tryLock(@Nonnull FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            // the lock is held by a different class loader within the same JVM
+            return null;
+        }
+    }
+
+    /**
+     * Blocks until a file lock has been acquired.
+     */
+    @Nonnull
+    private static FileLock lock(@Nonnull FileChannel channel) throws IOException {
+        while (true) {
+            try {
+                return channel.lock();
+            } catch (OverlappingFileLockException ex) {
+                try {
+                    Thread.sleep(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while awaiting file lock");
+                }
+            }
+        }
+    }
+
+    /**
+     * Represents a task which is executed while holding a lock.
+     *
+     * @param <E> an exception type.
+     */
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+        void run() throws E;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.store;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.WillNotClose;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides a content addressed blob store which is shared between all workspaces of a user.
+ *
+ * Blobs are identified by the SHA-1 hash of their contents and are materialized into workspaces
+ * using hard links where the file system permits it (falling back to plain copies otherwise).
+ * Since all links share the same file, blobs are marked read-only in order to prevent accidental
+ * modifications from propagating into other workspaces.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+@ThreadSafe
+public class ContentStore {
+    private static final String OBJECT_DIRECTORY = "objects";
+    private static final String TEMPORARY_DIRECTORY = "tmp";
+    private static final Set<PosixFilePermission> READ_ONLY = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.GROUP_READ, PosixFilePermission.OTHERS_READ);
+
+    private final Path root;
+    private final boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    private volatile boolean linkSupported = true;
+
+    public ContentStore(@Nonnull Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Computes the identifier of the supplied contents without storing them.
+     */
+    @Nonnull
+    public static HashCode hash(@Nonnull @WillNotClose InputStream inputStream) throws IOException {
+        Hasher hasher = Hashing.sha1().newHasher();
+        byte[] buffer = new byte[8192];
+        int length;
+
+        while ((length = inputStream.read(buffer)) != -1) {
+            hasher.putBytes(buffer, 0, length);
+        }
+
+        return hasher.hash();
+    }
+
+    /**
+     * Checks whether a blob with the supplied identifier is present within the store.
+     */
+    public boolean contains(@Nonnull HashCode hash) {
+        return Files.isRegularFile(this.resolve(hash));
+    }
+
+    /**
+     * Resolves the path of a blob within the store.
+     */
+    @Nonnull
+    private Path resolve(@Nonnull HashCode hash) {
+        String name = hash.toString();
+        return this.root.resolve(OBJECT_DIRECTORY).resolve(name.substring(0, 2)).resolve(name.substring(2));
+    }
+
+    /**
+     * Adds the supplied contents to the store (unless an identical blob is already present).
+     *
+     * @return the identifier of the blob.
+     */
+    @Nonnull
+    public HashCode store(@Nonnull @WillNotClose InputStream inputStream) throws IOException {
+        Path tmpDirectory = this.root.resolve(TEMPORARY_DIRECTORY);
+        Files.createDirectories(tmpDirectory);
+        Path tmp = Files.createTempFile(tmpDirectory, "blob", ".tmp");
+
+        try {
+            Hasher hasher = Hashing.sha1().newHasher();
+
+            try (OutputStream outputStream = Files.newOutputStream(tmp)) {
+                byte[] buffer = new byte[8192];
+                int length;
+
+                while ((length = inputStream.read(buffer)) != -1) {
+                    hasher.putBytes(buffer, 0, length);
+                    outputStream.write(buffer, 0, length);
+                }
+            }
+
+            HashCode hash = hasher.hash();
+            Path blob = this.resolve(hash);
+
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+
+                if (this.posix) {
+                    Files.setPosixFilePermissions(tmp, READ_ONLY);
+                }
+
+                try {
+                    Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignore) {
+                    // another process stored the same blob in the meantime
+                }
+            }
+
+            return hash;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Materializes a blob at the supplied location.
+     *
+     * @throws IOException when the blob does not exist or the target cannot be written.
+     */
+    public void materialize(@Nonnull HashCode hash, @Nonnull Path target) throws IOException {
+        Path blob = this.resolve(hash);
+        Files.deleteIfExists(target);
+
+        if (this.linkSupported) {
+            try {
+                Files.createLink(target, blob);
+                return;
+            } catch (UnsupportedOperationException ex) {
+                // hard links are not supported by the file system (in which case we'll fall back
+                // to copying for all remaining blobs)
+                this.linkSupported = false;
+            } catch (FileSystemException ex) {
+                // the store may reside on a different volume than the workspace (in which case
+                // we'll fall back to copying for all remaining blobs) while all other failures
+                // are reported as is
+                if (!isCrossDevice(blob, target)) {
+                    throw ex;
+                }
+
+                this.linkSupported = false;
+            }
+        }
+
+        try (InputStream inputStream = Files.newInputStream(blob)) {
+            try (OutputStream outputStream = Files.newOutputStream(target)) {
+                ByteStreams.copy(inputStream, outputStream);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a blob and the target it is materialized at reside on different volumes.
+     */
+    private static boolean isCrossDevice(@Nonnull Path blob, @Nonnull Path target) {
+        try {
+            return !Files.getFileStore(blob).equals(Files.getFileStore(target.toAbsolutePath().getParent()));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+}
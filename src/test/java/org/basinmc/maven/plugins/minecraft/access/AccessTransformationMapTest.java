@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import org.jboss.forge.roaster.model.Visibility;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the resolution of inherited access transformation rules.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class AccessTransformationMapTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Evaluates whether the rules of the nearest supertype take precedence when the supertype
+     * precedes its parent in the alphabet.
+     */
+    @Test
+    public void testNearestSupertypeWins() throws IOException {
+        this.assertNearestSupertypeWins("test/B", "test/A", "test/C");
+    }
+
+    /**
+     * Evaluates whether the rules of the nearest supertype take precedence when the supertype
+     * succeeds its parent in the alphabet.
+     */
+    @Test
+    public void testNearestSupertypeWinsReversed() throws IOException {
+        this.assertNearestSupertypeWins("test/A", "test/B", "test/C");
+    }
+
+    /**
+     * Evaluates whether rules which are specified for a type directly take precedence over rules
+     * inherited from its supertypes.
+     */
+    @Test
+    public void testDirectRulesWin() throws IOException {
+        Path modulePath = this.writeModule("test/A", "test/B", "test/C");
+        Path configurationPath = this.writeConfiguration(
+                "  \"test.A\": { \"subtypeVisibility\": \"public\", \"inheritedMethods\": { \"m\": \"public\" } },\n" +
+                        "  \"test.C\": { \"visibility\": \"private\", \"methods\": { \"m\": \"private\" } }\n"
+        );
+
+        TransformationType type = AccessTransformationMap.read(configurationPath)
+                .resolve(ClassHierarchyIndex.read(modulePath))
+                .getTypeMappings("test.C")
+                .orElseThrow(AssertionError::new);
+
+        Assert.assertEquals(Visibility.PRIVATE, type.getVisibility().orElse(null));
+        Assert.assertEquals(Visibility.PRIVATE, type.findMethodVisibility("m", "()V"));
+    }
+
+    /**
+     * Asserts that a type inherits the rules of its parent rather than the rules of its
+     * grandparent.
+     */
+    private void assertNearestSupertypeWins(@Nonnull String root, @Nonnull String parent, @Nonnull String child) throws IOException {
+        Path modulePath = this.writeModule(root, parent, child);
+        Path configurationPath = this.writeConfiguration(
+                "  \"" + root.replace('/', '.') + "\": { \"subtypeVisibility\": \"public\", \"inheritedMethods\": { \"m\": \"public\" } },\n" +
+                        "  \"" + parent.replace('/', '.') + "\": { \"subtypeVisibility\": \"protected\", \"inheritedMethods\": { \"m\": \"protected\" } }\n"
+        );
+
+        AccessTransformationMap map = AccessTransformationMap.read(configurationPath)
+                .resolve(ClassHierarchyIndex.read(modulePath));
+
+        TransformationType parentType = map.getTypeMappings(parent.replace('/', '.')).orElseThrow(AssertionError::new);
+        Assert.assertEquals(Visibility.PUBLIC, parentType.getVisibility().orElse(null));
+        Assert.assertEquals(Visibility.PROTECTED, parentType.findMethodVisibility("m", "()V"));
+
+        TransformationType childType = map.getTypeMappings(child.replace('/', '.')).orElseThrow(AssertionError::new);
+        Assert.assertEquals(Visibility.PROTECTED, childType.getVisibility().orElse(null));
+        Assert.assertEquals(Visibility.PROTECTED, childType.findMethodVisibility("m", "()V"));
+    }
+
+    /**
+     * Writes a module which consists of a three-level type hierarchy.
+     */
+    @Nonnull
+    private Path writeModule(@Nonnull String root, @Nonnull String parent, @Nonnull String child) throws IOException {
+        Path path = this.folder.newFile("module.jar").toPath();
+
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                this.writeClass(zipOutputStream, root, "java/lang/Object");
+                this.writeClass(zipOutputStream, parent, root);
+                this.writeClass(zipOutputStream, child, parent);
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Writes an empty class which extends the supplied super class.
+     */
+    private void writeClass(@Nonnull ZipOutputStream outputStream, @Nonnull String name, @Nonnull String superName) throws IOException {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        writer.visitEnd();
+
+        outputStream.putNextEntry(new ZipEntry(name + ".class"));
+        outputStream.write(writer.toByteArray());
+        outputStream.closeEntry();
+    }
+
+    /**
+     * Writes an access transformation configuration which consists of the supplied type entries.
+     */
+    @Nonnull
+    private Path writeConfiguration(@Nonnull String entries) throws IOException {
+        Path path = this.folder.newFile("at.json").toPath();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("{\n" + entries + "}\n");
+        }
+
+        return path;
+    }
+}
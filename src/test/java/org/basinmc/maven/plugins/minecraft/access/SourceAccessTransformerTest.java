@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Provides test cases for the application of access transformations to source files.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class SourceAccessTransformerTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Evaluates whether rules for a single field within a declaration of multiple fields leave the
+     * remaining fields untouched.
+     */
+    @Test
+    public void testMultipleFieldDeclaration() throws IOException {
+        Path configurationPath = this.folder.newFile("at.json").toPath();
+        Files.write(configurationPath, "{ \"test.Test\": { \"fields\": { \"b\": \"public\" } } }\n".getBytes(StandardCharsets.UTF_8));
+
+        String contents = "package test;\n\nclass Test {\n    private int a, b;\n}\n";
+        JavaClassSource source = Roaster.parse(JavaClassSource.class, contents);
+        VisibilityEditor editor = new VisibilityEditor(contents);
+
+        new SourceAccessTransformer(AccessTransformationMap.read(configurationPath)).apply(source, editor::setVisibility);
+
+        Assert.assertEquals("package test;\n\nclass Test {\n    private int a;\n    public int b;\n}\n", editor.apply());
+    }
+}
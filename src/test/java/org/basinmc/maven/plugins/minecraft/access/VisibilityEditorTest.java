@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.access;
+
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.Visibility;
+import org.jboss.forge.roaster.model.source.FieldSource;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the in-place editing of visibility modifiers.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class VisibilityEditorTest {
+    private static final String SOURCE = "package test;\n" +
+            "\n" +
+            "class Test {\n" +
+            "    /**\n" +
+            "     * Documentation.\n" +
+            "     */\n" +
+            "    @Deprecated\n" +
+            "    private   static int a; // comment\n" +
+            "\n" +
+            "    protected final int b, c[] = {1};\n" +
+            "\n" +
+            "    @Deprecated int d;\n" +
+            "\n" +
+            "    public void method() {\n" +
+            "        int   local = 0;\n" +
+            "    }\n" +
+            "}\n";
+
+    /**
+     * Evaluates whether only the affected modifier tokens are replaced, inserted or removed.
+     */
+    @Test
+    public void testTokenPreservingEdit() {
+        JavaClassSource source = Roaster.parse(JavaClassSource.class, SOURCE);
+        VisibilityEditor editor = new VisibilityEditor(SOURCE);
+
+        editor.setVisibility(source, Visibility.PUBLIC);
+        editor.setVisibility(source.getField("a"), Visibility.PROTECTED);
+        editor.setVisibility(source.getField("d"), Visibility.PRIVATE);
+        editor.setVisibility(source.getMethod("method"), Visibility.PACKAGE_PRIVATE);
+
+        Assert.assertEquals(SOURCE
+                        .replace("class Test", "public class Test")
+                        .replace("private   static", "protected   static")
+                        .replace("@Deprecated int d", "@Deprecated private int d")
+                        .replace("public void", "void"),
+                editor.apply());
+    }
+
+    /**
+     * Evaluates whether declarations of multiple fields are edited as a whole when all of their
+     * fields receive the same visibility.
+     */
+    @Test
+    public void testMultipleFieldsAgree() {
+        JavaClassSource source = Roaster.parse(JavaClassSource.class, SOURCE);
+        VisibilityEditor editor = new VisibilityEditor(SOURCE);
+
+        editor.setVisibility(getField(source, "b"), Visibility.PUBLIC);
+        editor.setVisibility(getField(source, "c"), Visibility.PUBLIC);
+
+        Assert.assertEquals(SOURCE.replace("protected final int b", "public final int b"), editor.apply());
+    }
+
+    /**
+     * Evaluates whether declarations of multiple fields are split up when their fields receive
+     * differing visibilities.
+     */
+    @Test
+    public void testMultipleFieldsDisagree() {
+        JavaClassSource source = Roaster.parse(JavaClassSource.class, SOURCE);
+        VisibilityEditor editor = new VisibilityEditor(SOURCE);
+
+        editor.setVisibility(getField(source, "c"), Visibility.PUBLIC);
+
+        Assert.assertEquals(SOURCE.replace("    protected final int b, c[] = {1};\n", "    protected final int b;\n    public final int c[] = {1};\n"), editor.apply());
+    }
+
+    /**
+     * Evaluates whether split declarations retain their annotations and support the removal of
+     * modifiers.
+     */
+    @Test
+    public void testMultipleFieldsSplitAnnotated() {
+        String contents = "class Test { @Deprecated private int a, b; }\n";
+        JavaClassSource source = Roaster.parse(JavaClassSource.class, contents);
+        VisibilityEditor editor = new VisibilityEditor(contents);
+
+        editor.setVisibility(getField(source, "a"), Visibility.PACKAGE_PRIVATE);
+
+        Assert.assertEquals("class Test { @Deprecated int a; @Deprecated private int b; }\n", editor.apply());
+    }
+
+    /**
+     * Retrieves a field based on the name of its backing fragment.
+     */
+    @Nonnull
+    private static FieldSource<JavaClassSource> getField(@Nonnull JavaClassSource source, @Nonnull String name) {
+        return source.getFields().stream()
+                .filter((f) -> SourceAccessTransformer.getFieldName(f).equals(name))
+                .findAny()
+                .orElseThrow(AssertionError::new);
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.decompiler;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the partitioning of class archives.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class ClassPartitionsTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Evaluates whether inner classes are kept within the partition of their outer class.
+     */
+    @Test
+    public void testChunkedKeepsInnerClasses() throws IOException {
+        try (ZipFile file = new ZipFile(this.writeModule().toFile())) {
+            List<Set<String>> chunks = ClassPartitions.chunked(file, 1);
+
+            Assert.assertEquals(3, chunks.size());
+            Assert.assertTrue(chunks.contains(Collections.singleton("a/A")));
+            Assert.assertTrue(chunks.contains(Collections.singleton("a/B")));
+            Assert.assertTrue(chunks.contains(Collections.singleton("b/C")));
+        }
+    }
+
+    /**
+     * Evaluates whether stubs retain all classes while removing their method bodies.
+     */
+    @Test
+    public void testStubs() throws IOException {
+        Path stubs = this.folder.getRoot().toPath().resolve("stubs.jar");
+
+        try (ZipFile file = new ZipFile(this.writeModule().toFile())) {
+            ClassPartitions.writeStubs(file, stubs);
+
+            try (ZipFile stubFile = new ZipFile(stubs.toFile())) {
+                Assert.assertEquals(this.getEntries(file), this.getEntries(stubFile));
+                Assert.assertTrue(stubFile.getEntry("a/A.class").getSize() < file.getEntry("a/A.class").getSize());
+            }
+        }
+    }
+
+    /**
+     * Evaluates whether the library of a partition omits the partition's own classes (including
+     * their inner classes).
+     */
+    @Test
+    public void testLibraryExcludesPartition() throws IOException {
+        Path stubs = this.folder.getRoot().toPath().resolve("stubs.jar");
+        Path library = this.folder.getRoot().toPath().resolve("library.jar");
+
+        try (ZipFile file = new ZipFile(this.writeModule().toFile())) {
+            ClassPartitions.writeStubs(file, stubs);
+        }
+
+        try (ZipFile stubFile = new ZipFile(stubs.toFile())) {
+            ClassPartitions.writeLibrary(stubFile, new HashSet<>(Arrays.asList("a/A", "b/C")), library);
+        }
+
+        try (ZipFile libraryFile = new ZipFile(library.toFile())) {
+            Assert.assertEquals(Collections.singleton("a/B.class"), this.getEntries(libraryFile));
+        }
+    }
+
+    /**
+     * Retrieves the names of all entries within an archive.
+     */
+    @Nonnull
+    private Set<String> getEntries(@Nonnull ZipFile file) {
+        Set<String> names = new TreeSet<>();
+        Enumeration<ZipArchiveEntry> entries = file.getEntries();
+
+        while (entries.hasMoreElements()) {
+            names.add(entries.nextElement().getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Writes a module which consists of two packages and an inner class.
+     */
+    @Nonnull
+    private Path writeModule() throws IOException {
+        Path path = this.folder.newFile("module.jar").toPath();
+
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                this.writeClass(zipOutputStream, "a/A");
+                this.writeClass(zipOutputStream, "a/A$Inner");
+                this.writeClass(zipOutputStream, "a/B");
+                this.writeClass(zipOutputStream, "b/C");
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Writes a class which consists of a single constructor.
+     */
+    private void writeClass(@Nonnull ZipOutputStream outputStream, @Nonnull String name) throws IOException {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+
+        MethodVisitor visitor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        visitor.visitCode();
+        visitor.visitVarInsn(Opcodes.ALOAD, 0);
+        visitor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        visitor.visitInsn(Opcodes.RETURN);
+        visitor.visitMaxs(0, 0);
+        visitor.visitEnd();
+
+        writer.visitEnd();
+
+        outputStream.putNextEntry(new ZipEntry(name + ".class"));
+        outputStream.write(writer.toByteArray());
+        outputStream.closeEntry();
+    }
+}
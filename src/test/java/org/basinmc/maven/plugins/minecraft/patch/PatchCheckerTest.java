@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the detection of conflicting patches.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class PatchCheckerTest {
+    private static final String ORIGINAL = "class Test {\n    int a;\n    int b;\n    int c;\n}\n";
+    private static final String MODIFIED = "class Test {\n    int a;\n    int x;\n    int c;\n}\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private Path patch;
+
+    @Before
+    public void setUp() throws GitAPIException, IOException {
+        this.git = Git.init().setDirectory(this.folder.newFolder("repository")).call();
+
+        RevCommit original = this.commit(ORIGINAL);
+        RevCommit modified = this.commit(MODIFIED);
+
+        this.patch = this.folder.getRoot().toPath().resolve("0001-Test.patch");
+
+        try (OutputStream outputStream = Files.newOutputStream(this.patch)) {
+            try (DiffFormatter formatter = new DiffFormatter(outputStream)) {
+                formatter.setRepository(this.git.getRepository());
+                formatter.format(original.getTree(), modified.getTree());
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        this.git.close();
+    }
+
+    /**
+     * Evaluates whether patches apply to their exact pre-image.
+     */
+    @Test
+    public void testExactPreImage() throws GitAPIException, IOException {
+        Assert.assertTrue(this.check(ORIGINAL).isEmpty());
+    }
+
+    /**
+     * Evaluates whether patches apply to an altered pre-image when their context remains intact.
+     */
+    @Test
+    public void testOffsetContext() throws GitAPIException, IOException {
+        Assert.assertTrue(this.check("import java.util.List;\n\n" + ORIGINAL + "\nclass Other {\n}\n").isEmpty());
+    }
+
+    /**
+     * Evaluates whether whitespace changes within the context are ignored.
+     */
+    @Test
+    public void testWhitespaceContext() throws GitAPIException, IOException {
+        Assert.assertTrue(this.check(ORIGINAL.replace("    ", "\t")).isEmpty());
+    }
+
+    /**
+     * Evaluates whether patches are reported when their context has been altered.
+     */
+    @Test
+    public void testChangedContext() throws GitAPIException, IOException {
+        List<PatchChecker.Conflict> conflicts = this.check(ORIGINAL.replace("int a;", "long a;"));
+
+        Assert.assertEquals(1, conflicts.size());
+        Assert.assertEquals("Test.java", conflicts.get(0).getFile());
+        Assert.assertTrue(conflicts.get(0).getReason().startsWith("Context of hunk #1"));
+    }
+
+    /**
+     * Commits the supplied base contents and checks the patch against the resulting commit.
+     */
+    @Nonnull
+    private List<PatchChecker.Conflict> check(@Nonnull String contents) throws GitAPIException, IOException {
+        RevCommit base = this.commit(contents);
+        return new PatchChecker(this.git.getRepository(), 2).check(base, Collections.singletonList(this.patch));
+    }
+
+    /**
+     * Commits a new revision of the test file.
+     */
+    @Nonnull
+    private RevCommit commit(@Nonnull String contents) throws GitAPIException, IOException {
+        Files.write(this.git.getRepository().getWorkTree().toPath().resolve("Test.java"), contents.getBytes(StandardCharsets.UTF_8));
+        this.git.add().addFilepattern("Test.java").call();
+
+        return this.git.commit()
+                .setAuthor("Test", "test@example.org")
+                .setCommitter("Test", "test@example.org")
+                .setMessage("Test")
+                .setAllowEmpty(true)
+                .call();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the generation of patch files.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class PatchGeneratorTest {
+    private static final PersonIdent AUTHOR = new PersonIdent("Test User", "test@example.org", new Date(1470000000000L), TimeZone.getTimeZone("GMT+02:00"));
+
+    // this patch has been generated using git format-patch --minimal --no-stat -N (excluding the
+    // volatile header and signature)
+    private static final String EXPECTED_PATCH = "From: Test User <test@example.org>\n" +
+            "Date: Sun, 31 Jul 2016 23:20:00 +0200\n" +
+            "Subject: [PATCH] Add a second field\n" +
+            "\n" +
+            "Fields are important.\n" +
+            "\n" +
+            "diff --git a/Test.java b/Test.java\n" +
+            "index 8e9f5a6..4650755 100644\n" +
+            "--- a/Test.java\n" +
+            "+++ b/Test.java\n" +
+            "@@ -1,3 +1,4 @@\n" +
+            " class Test {\n" +
+            "     int a;\n" +
+            "+    int b;\n" +
+            " }\n";
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private Path patchDirectory;
+
+    @Before
+    public void setUp() throws GitAPIException, IOException {
+        this.git = Git.init().setDirectory(this.folder.newFolder("repository")).call();
+        this.patchDirectory = this.folder.newFolder("patches").toPath();
+
+        this.commit("class Test {\n    int a;\n}\n", "Base");
+        this.git.branchCreate().setName("upstream").call();
+    }
+
+    @After
+    public void tearDown() {
+        this.git.close();
+    }
+
+    /**
+     * Evaluates whether commits are rendered in the same format as git.
+     */
+    @Test
+    public void testRender() throws GitAPIException, IOException {
+        RevCommit commit = this.commit("class Test {\n    int a;\n    int b;\n}\n", "Add a second field\n\nFields are important.\n");
+
+        PatchGenerator.Result result = new PatchGenerator(this.git.getRepository(), this.patchDirectory, 2).generate("upstream");
+
+        Assert.assertEquals(1, result.getTotal());
+        Assert.assertEquals(1, result.getWritten());
+        Assert.assertEquals(0, result.getRemoved());
+
+        Path patch = this.patchDirectory.resolve("0001-Add-a-second-field.patch");
+        Assert.assertTrue(Files.isRegularFile(patch));
+
+        String contents = new String(Files.readAllBytes(patch), StandardCharsets.UTF_8);
+        Assert.assertTrue(contents.startsWith("From " + commit.name() + " Mon Sep 17 00:00:00 2001\n"));
+        Assert.assertTrue(contents.endsWith("\n-- \nminecraft-maven-plugin\n\n"));
+        Assert.assertEquals(EXPECTED_PATCH, PatchGenerator.normalize(Files.readAllBytes(patch)));
+    }
+
+    /**
+     * Evaluates whether unchanged patches are left untouched and stale patches are removed.
+     */
+    @Test
+    public void testRegenerate() throws GitAPIException, IOException {
+        this.commit("class Test {\n    int a;\n    int b;\n}\n", "Add a second field\n\nFields are important.\n");
+
+        Path stale = this.patchDirectory.resolve("0002-Stale.patch");
+        Files.write(stale, new byte[0]);
+
+        PatchGenerator generator = new PatchGenerator(this.git.getRepository(), this.patchDirectory, 2);
+        generator.generate("upstream");
+
+        // a patch with a differing header and signature is considered to be equivalent
+        Path patch = this.patchDirectory.resolve("0001-Add-a-second-field.patch");
+        Files.write(patch, ("From 0000000000000000000000000000000000000000 Mon Sep 17 00:00:00 2001\n" + EXPECTED_PATCH + "-- \n2.9.0\n\n").getBytes(StandardCharsets.UTF_8));
+
+        PatchGenerator.Result result = generator.generate("upstream");
+
+        Assert.assertEquals(1, result.getTotal());
+        Assert.assertEquals(0, result.getWritten());
+        Assert.assertEquals(0, result.getRemoved());
+        Assert.assertTrue(Files.notExists(stale));
+    }
+
+    /**
+     * Evaluates whether file names are derived from commit subjects in the same manner as git.
+     */
+    @Test
+    public void testFileName() {
+        Assert.assertEquals("0001-Add-a-second-field.patch", PatchGenerator.getFileName(1, "Add a second field"));
+        Assert.assertEquals("0002-Fix-Block-getState-NPE.patch", PatchGenerator.getFileName(2, "Fix Block#getState() NPE!"));
+        Assert.assertEquals("0003-Collapse.dots.patch", PatchGenerator.getFileName(3, "  Collapse...dots.."));
+        Assert.assertEquals("0004-Truncate-this-very-long-subject-line-which-exceeds-t.patch", PatchGenerator.getFileName(4, "Truncate this very long subject line which exceeds the limit"));
+        Assert.assertEquals("0005-Truncate-this-very-long-subject-line-which-exceed.x-.patch", PatchGenerator.getFileName(5, "Truncate this very long subject line which exceed.x the limit"));
+    }
+
+    /**
+     * Commits a new revision of the test file.
+     */
+    @Nonnull
+    private RevCommit commit(@Nonnull String contents, @Nonnull String message) throws GitAPIException, IOException {
+        Files.write(this.git.getRepository().getWorkTree().toPath().resolve("Test.java"), contents.getBytes(StandardCharsets.UTF_8));
+        this.git.add().addFilepattern("Test.java").call();
+
+        return this.git.commit()
+                .setAuthor(AUTHOR)
+                .setCommitter(AUTHOR)
+                .setMessage(message)
+                .call();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the persistence and reuse of patch states.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class PatchStateTest {
+    private static final ObjectId UPSTREAM = id(1);
+    private static final HashCode FIRST_HASH = hash("first");
+    private static final HashCode SECOND_HASH = hash("second");
+    private static final HashCode THIRD_HASH = hash("third");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Evaluates whether states are restored as written.
+     */
+    @Test
+    public void testReadWrite() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("state").resolve("patch-state");
+        new PatchState(UPSTREAM, "fingerprint", id(3), this.createEntries()).write(path);
+
+        PatchState state = PatchState.read(path);
+
+        Assert.assertNotNull(state);
+        Assert.assertEquals(UPSTREAM, state.getUpstream());
+        Assert.assertEquals("fingerprint", state.getFingerprint().orElse(null));
+        Assert.assertEquals(id(3), state.getResult());
+        Assert.assertEquals(2, state.getEntries().size());
+        Assert.assertEquals(FIRST_HASH.toString(), state.getEntries().get(0).getHash());
+        Assert.assertEquals(id(10), state.getEntries().get(0).getCommit());
+        Assert.assertEquals(SECOND_HASH.toString(), state.getEntries().get(1).getHash());
+        Assert.assertEquals(id(11), state.getEntries().get(1).getCommit());
+    }
+
+    /**
+     * Evaluates whether partially applied states are restored without fingerprint.
+     */
+    @Test
+    public void testReadWriteWithoutFingerprint() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("patch-state");
+        new PatchState(UPSTREAM, null, id(3), Collections.emptyList()).write(path);
+
+        PatchState state = PatchState.read(path);
+
+        Assert.assertNotNull(state);
+        Assert.assertFalse(state.getFingerprint().isPresent());
+        Assert.assertTrue(state.getEntries().isEmpty());
+    }
+
+    /**
+     * Evaluates whether missing and incomplete states are discarded.
+     */
+    @Test
+    public void testReadInvalid() throws IOException {
+        Path path = this.folder.getRoot().toPath().resolve("patch-state");
+        Assert.assertNull(PatchState.read(path));
+
+        Files.write(path, ("upstream " + UPSTREAM.name() + "\n").getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(PatchState.read(path));
+
+        Files.write(path, ("upstream " + UPSTREAM.name() + "\nresult " + id(3).name() + "\npatch " + FIRST_HASH + " invalid\n").getBytes(StandardCharsets.UTF_8));
+        Assert.assertNull(PatchState.read(path));
+    }
+
+    /**
+     * Evaluates whether fingerprints are independent of the location of the patch directory but
+     * reflect the upstream commit, the patch names, their contents and their order.
+     */
+    @Test
+    public void testFingerprint() {
+        Path directory = Paths.get("patches");
+        List<Path> patches = Arrays.asList(directory.resolve("0001-First.patch"), directory.resolve("0002-Second.patch"));
+        List<HashCode> hashes = Arrays.asList(FIRST_HASH, SECOND_HASH);
+        String fingerprint = PatchState.fingerprint(UPSTREAM, directory, patches, hashes);
+
+        Path otherDirectory = Paths.get("other", "patches");
+        Assert.assertEquals(fingerprint, PatchState.fingerprint(UPSTREAM, otherDirectory, Arrays.asList(otherDirectory.resolve("0001-First.patch"), otherDirectory.resolve("0002-Second.patch")), hashes));
+
+        Assert.assertNotEquals(fingerprint, PatchState.fingerprint(id(2), directory, patches, hashes));
+        Assert.assertNotEquals(fingerprint, PatchState.fingerprint(UPSTREAM, directory, Arrays.asList(directory.resolve("0001-First.patch"), directory.resolve("0002-Other.patch")), hashes));
+        Assert.assertNotEquals(fingerprint, PatchState.fingerprint(UPSTREAM, directory, patches, Arrays.asList(FIRST_HASH, THIRD_HASH)));
+        Assert.assertNotEquals(fingerprint, PatchState.fingerprint(UPSTREAM, directory, patches, Arrays.asList(SECOND_HASH, FIRST_HASH)));
+    }
+
+    /**
+     * Evaluates whether the content hash of a patch ignores its commit identifier and signature.
+     */
+    @Test
+    public void testHash() throws IOException {
+        String body = "From: Test <test@example.org>\nSubject: [PATCH] Test\n\n---\n";
+
+        Path first = this.folder.newFile("0001-First.patch").toPath();
+        Files.write(first, ("From " + id(10).name() + " Mon Sep 17 00:00:00 2001\n" + body + "-- \n2.9.0\n").getBytes(StandardCharsets.UTF_8));
+
+        Path second = this.folder.newFile("0001-Second.patch").toPath();
+        Files.write(second, ("From " + id(11).name() + " Mon Sep 17 00:00:00 2001\n" + body + "-- \nminecraft-maven-plugin\n").getBytes(StandardCharsets.UTF_8));
+
+        Path third = this.folder.newFile("0001-Third.patch").toPath();
+        Files.write(third, ("From " + id(10).name() + " Mon Sep 17 00:00:00 2001\n" + body.replace("Test\n\n", "Other\n\n") + "-- \n2.9.0\n").getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals(PatchState.hash(first), PatchState.hash(second));
+        Assert.assertNotEquals(PatchState.hash(first), PatchState.hash(third));
+    }
+
+    /**
+     * Evaluates whether all entries are reused when the patches remain unchanged.
+     */
+    @Test
+    public void testUnchangedEntries() {
+        List<PatchState.Entry> entries = this.createState().getUnchangedEntries(UPSTREAM, Arrays.asList(FIRST_HASH, SECOND_HASH, THIRD_HASH), (c) -> true);
+
+        Assert.assertEquals(2, entries.size());
+        Assert.assertEquals(id(11), entries.get(1).getCommit());
+    }
+
+    /**
+     * Evaluates whether entries are reused up to the first changed patch.
+     */
+    @Test
+    public void testUnchangedEntriesChangedPatch() {
+        PatchState state = this.createState();
+
+        Assert.assertEquals(1, state.getUnchangedEntries(UPSTREAM, Arrays.asList(FIRST_HASH, THIRD_HASH), (c) -> true).size());
+        Assert.assertTrue(state.getUnchangedEntries(UPSTREAM, Arrays.asList(THIRD_HASH, SECOND_HASH), (c) -> true).isEmpty());
+        Assert.assertEquals(1, state.getUnchangedEntries(UPSTREAM, Collections.singletonList(FIRST_HASH), (c) -> true).size());
+    }
+
+    /**
+     * Evaluates whether entries are reused up to the first commit which no longer exists.
+     */
+    @Test
+    public void testUnchangedEntriesMissingCommit() {
+        List<PatchState.Entry> entries = this.createState().getUnchangedEntries(UPSTREAM, Arrays.asList(FIRST_HASH, SECOND_HASH), (c) -> !c.equals(id(11)));
+
+        Assert.assertEquals(1, entries.size());
+        Assert.assertEquals(id(10), entries.get(0).getCommit());
+    }
+
+    /**
+     * Evaluates whether no entries are reused when the upstream commit changed.
+     */
+    @Test
+    public void testUnchangedEntriesChangedUpstream() {
+        Assert.assertTrue(this.createState().getUnchangedEntries(id(2), Arrays.asList(FIRST_HASH, SECOND_HASH), (c) -> true).isEmpty());
+    }
+
+    /**
+     * Creates a state which consists of two applied patches.
+     */
+    @Nonnull
+    private PatchState createState() {
+        return new PatchState(UPSTREAM, null, id(11), this.createEntries());
+    }
+
+    /**
+     * Creates two entries for the first and second patch.
+     */
+    @Nonnull
+    private List<PatchState.Entry> createEntries() {
+        return Arrays.asList(new PatchState.Entry(FIRST_HASH.toString(), id(10)), new PatchState.Entry(SECOND_HASH.toString(), id(11)));
+    }
+
+    /**
+     * Creates a fake object identifier.
+     */
+    @Nonnull
+    private static ObjectId id(int value) {
+        return ObjectId.fromRaw(new int[] {value, 0, 0, 0, 0});
+    }
+
+    /**
+     * Computes the hash of an arbitrary string.
+     */
+    @Nonnull
+    private static HashCode hash(@Nonnull String value) {
+        return Hashing.sha1().hashString(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.patch;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.util.FS;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the detection of uncommitted changes based on cached stat data.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class StatusCacheTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Git git;
+    private Path workTree;
+    private StatusCache cache;
+
+    @Before
+    public void setUp() throws GitAPIException, IOException {
+        this.git = Git.init().setDirectory(this.folder.newFolder("repository")).call();
+        this.workTree = this.git.getRepository().getWorkTree().toPath();
+        this.cache = new StatusCache(this.git.getRepository(), this.folder.newFolder("state").toPath().resolve(StatusCache.FILE_NAME));
+
+        this.write("Test.java", "class Test {}\n");
+        this.commit("Test.java");
+    }
+
+    @After
+    public void tearDown() {
+        this.git.close();
+    }
+
+    /**
+     * Evaluates whether modifications to a previously clean working tree are detected.
+     */
+    @Test
+    public void testModifiedFile() throws GitAPIException, IOException {
+        Assert.assertTrue(this.cache.isClean());
+
+        this.write("Test.java", "class Test { int a; }\n");
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Evaluates whether untracked files are detected.
+     */
+    @Test
+    public void testUntrackedFile() throws GitAPIException, IOException {
+        Assert.assertTrue(this.cache.isClean());
+
+        this.write("Other.java", "class Other {}\n");
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Evaluates whether deleted files are detected.
+     */
+    @Test
+    public void testDeletedFile() throws GitAPIException, IOException {
+        Assert.assertTrue(this.cache.isClean());
+
+        Files.delete(this.workTree.resolve("Test.java"));
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Evaluates whether modifications which retain the size and modification time of a file are
+     * detected when they occur shortly after the snapshot has been taken.
+     */
+    @Test
+    public void testRacyModification() throws GitAPIException, IOException {
+        // the modification time is moved away from the time recorded within the index in order to
+        // force git to compare the contents of the file
+        FileTime modified = FileTime.fromMillis(System.currentTimeMillis() + 1000);
+        Files.setLastModifiedTime(this.workTree.resolve("Test.java"), modified);
+
+        Assert.assertTrue(this.cache.isClean());
+
+        this.write("Test.java", "class Best {}\n");
+        Files.setLastModifiedTime(this.workTree.resolve("Test.java"), modified);
+
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Evaluates whether a change to the HEAD commit causes the complete working tree to be
+     * checked.
+     */
+    @Test
+    public void testHeadChange() throws GitAPIException, IOException {
+        this.hideModification();
+
+        this.write("Other.java", "class Other {}\n");
+        this.commit("Other.java");
+
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Evaluates whether a change to the index causes the complete working tree to be checked.
+     */
+    @Test
+    public void testIndexChange() throws GitAPIException, IOException {
+        this.hideModification();
+
+        Files.setLastModifiedTime(this.git.getRepository().getIndexFile().toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+
+        Assert.assertFalse(this.cache.isClean());
+    }
+
+    /**
+     * Applies a modification which is not reflected within the stat data of the test file (e.g.
+     * a change of its executable flag) and thus remains invisible until the complete working tree
+     * is checked.
+     */
+    private void hideModification() throws GitAPIException, IOException {
+        Assume.assumeTrue(FS.DETECTED.supportsExecute());
+
+        StoredConfig config = this.git.getRepository().getConfig();
+        config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_KEY_FILEMODE, true);
+        config.save();
+
+        // the file is moved out of the racy window in order to prevent it from being re-checked
+        Path path = this.workTree.resolve("Test.java");
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)));
+
+        Assert.assertTrue(this.cache.isClean());
+
+        FS.DETECTED.setExecute(path.toFile(), true);
+        Assert.assertTrue(this.cache.isClean());
+    }
+
+    /**
+     * Writes a file into the working tree.
+     */
+    private void write(@Nonnull String path, @Nonnull String contents) throws IOException {
+        Files.write(this.workTree.resolve(path), contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Commits a file of the working tree.
+     */
+    private void commit(@Nonnull String path) throws GitAPIException {
+        this.git.add().addFilepattern(path).call();
+        this.git.commit()
+                .setAuthor("Test", "test@example.org")
+                .setCommitter("Test", "test@example.org")
+                .setMessage("Add " + path)
+                .call();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Johannes Donath <johannesd@torchmind.com>
+ * and other copyright owners as documented in the project's IP log.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * 	http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.basinmc.maven.plugins.minecraft.store;
+
+import com.google.common.hash.HashCode;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Provides test cases for the materialization of blobs.
+ *
+ * @author <a href="mailto:johannesd@torchmind.com">Johannes Donath</a>
+ */
+public class ContentStoreTest {
+    private static final byte[] CONTENTS = "class Test {}\n".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Evaluates whether blobs are materialized with their original contents.
+     */
+    @Test
+    public void testMaterialize() throws IOException {
+        ContentStore store = new ContentStore(this.folder.newFolder("store").toPath());
+        HashCode hash = store.store(new ByteArrayInputStream(CONTENTS));
+
+        Path target = this.folder.newFolder("workspace").toPath().resolve("Test.java");
+        store.materialize(hash, target);
+
+        Assert.assertTrue(store.contains(hash));
+        Assert.assertArrayEquals(CONTENTS, Files.readAllBytes(target));
+    }
+
+    /**
+     * Evaluates whether failures other than missing support for hard links are reported and leave
+     * the use of hard links enabled.
+     */
+    @Test
+    public void testFailureRetainsLinks() throws IOException {
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("unix"));
+
+        ContentStore store = new ContentStore(this.folder.newFolder("store").toPath());
+        HashCode hash = store.store(new ByteArrayInputStream(CONTENTS));
+        Path workspace = this.folder.newFolder("workspace").toPath();
+
+        try {
+            store.materialize(hash, workspace.resolve("missing").resolve("Test.java"));
+            Assert.fail("Expected materialization into a missing directory to fail");
+        } catch (NoSuchFileException ignore) {
+        }
+
+        Path target = workspace.resolve("Test.java");
+        store.materialize(hash, target);
+
+        Assert.assertArrayEquals(CONTENTS, Files.readAllBytes(target));
+        Assert.assertEquals(2, getLinkCount(target));
+    }
+
+    /**
+     * Retrieves the amount of hard links which refer to a file.
+     */
+    private static int getLinkCount(@Nonnull Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink");
+    }
+}